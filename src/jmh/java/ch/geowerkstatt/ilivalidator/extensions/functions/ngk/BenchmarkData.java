@@ -0,0 +1,67 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.ehi.basics.types.OutParam;
+import ch.interlis.iom.IomObject;
+import ch.interlis.iox_j.jts.Iox2jtsext;
+import ch.interlis.iox_j.logging.LogEventFactory;
+import com.vividsolutions.jts.geom.Geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic nested hazard zones for the benchmarks, created by {@link NgkDatasetGenerator} like the datasets of the scalability test.
+ */
+public final class BenchmarkData {
+    public static final String MODEL_FILE = "IsInsideAreaByCode/SetConstraints.ili";
+    public static final String TOPIC = NgkDatasetGenerator.TOPIC;
+    public static final String BASE_CLASS = NgkDatasetGenerator.BASE_CLASS;
+
+    // Half the resolution of the coordinates of BaseClass (3 decimal places).
+    private static final double ARC_TOLERANCE = 0.0005;
+
+    private BenchmarkData() {
+        // Utility class
+    }
+
+    /**
+     * Create {@code objectCount} objects of {@link #BASE_CLASS} distributed over {@code levelCount} code levels.
+     *
+     * @param broken if {@code true}, the inner polygons of every 100th cell are shifted outside their outer polygon.
+     */
+    public static List<IomObject> createObjects(int objectCount, int vertexCount, int levelCount, boolean broken) {
+        return new NgkDatasetGenerator()
+                .objectCount(objectCount)
+                .vertexCount(vertexCount)
+                .levelCount(levelCount)
+                .broken(broken)
+                .createObjects();
+    }
+
+    /**
+     * Convert the surfaces of {@code objects} the same way as {@link IsInsideAreaByCodeIoxPlugin} does.
+     */
+    public static List<Geometry> convertSurfaces(List<IomObject> objects) throws Exception {
+        LogEventFactory logger = new LogEventFactory();
+        List<Geometry> geometries = new ArrayList<>(objects.size());
+        for (IomObject object : objects) {
+            Geometry geometry = Iox2jtsext.multisurface2JTS(object.getattrobj("surface", 0), ARC_TOLERANCE, new OutParam<>(), logger, 0, "warning");
+            geometries.add(GeometryHelper.removeRedundantVertices(geometry));
+        }
+        return geometries;
+    }
+
+    /**
+     * Group the converted {@code geometries} of {@code objects} by their code level.
+     */
+    public static List<List<Geometry>> groupByLevel(List<IomObject> objects, List<Geometry> geometries, int levelCount) {
+        List<List<Geometry>> levels = new ArrayList<>(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            levels.add(new ArrayList<>());
+        }
+        for (int i = 0; i < objects.size(); i++) {
+            levels.get(NgkDatasetGenerator.getLevel(objects.get(i))).add(geometries.get(i));
+        }
+        return levels;
+    }
+}
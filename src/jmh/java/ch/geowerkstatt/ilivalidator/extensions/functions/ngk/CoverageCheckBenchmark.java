@@ -0,0 +1,87 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iom.IomObject;
+import com.vividsolutions.jts.algorithm.InteriorPointArea;
+import com.vividsolutions.jts.geom.Geometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Covers check between adjacent levels and localization of the offending geometry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CoverageCheckBenchmark {
+    @Param({"1000", "10000"})
+    public int objectCount;
+
+    @Param({"16", "256"})
+    public int vertexCount;
+
+    @Param({"2", "4", "16"})
+    public int levelCount;
+
+    @Param({"false", "true"})
+    public boolean broken;
+
+    private List<Geometry> levelUnions;
+    private List<CoverageResult> uncoveredResults;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<IomObject> objects = BenchmarkData.createObjects(objectCount, vertexCount, levelCount, broken);
+        levelUnions = new ArrayList<>();
+        for (List<Geometry> level : BenchmarkData.groupByLevel(objects, BenchmarkData.convertSurfaces(objects), levelCount)) {
+            levelUnions.add(GeometryHelper.union(level));
+        }
+
+        uncoveredResults = new ArrayList<>();
+        for (int i = 0; i < levelUnions.size() - 1; i++) {
+            CoverageResult result = CoverageHelper.checkCoverage(levelUnions.get(i + 1), levelUnions.get(i));
+            if (!result.isCovered()) {
+                uncoveredResults.add(result);
+            }
+        }
+    }
+
+    @Benchmark
+    public void checkCoverage(Blackhole blackhole) {
+        for (int i = 0; i < levelUnions.size() - 1; i++) {
+            blackhole.consume(CoverageHelper.checkCoverage(levelUnions.get(i + 1), levelUnions.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void fullCoversPredicate(Blackhole blackhole) {
+        for (int i = 0; i < levelUnions.size() - 1; i++) {
+            blackhole.consume(levelUnions.get(i + 1).covers(levelUnions.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void localizeError(Blackhole blackhole) {
+        for (CoverageResult result : uncoveredResults) {
+            if (!result.getOffending().isEmpty()) {
+                blackhole.consume(new InteriorPointArea(result.getOffending()).getInteriorPoint());
+            }
+        }
+    }
+}
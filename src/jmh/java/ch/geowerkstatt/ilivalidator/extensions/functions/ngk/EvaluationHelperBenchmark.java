@@ -0,0 +1,68 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.ehi.basics.settings.Settings;
+import ch.interlis.ili2c.Ili2c;
+import ch.interlis.ili2c.metamodel.PathEl;
+import ch.interlis.ili2c.metamodel.TransferDescription;
+import ch.interlis.ili2c.metamodel.Viewable;
+import ch.interlis.iom.IomObject;
+import ch.interlis.iox_j.PipelinePool;
+import ch.interlis.iox_j.logging.LogEventFactory;
+import ch.interlis.iox_j.validator.ValidationConfig;
+import ch.interlis.iox_j.validator.Validator;
+import ch.interlis.iox_j.validator.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the surface attribute path with {@link EvaluationHelper#evaluateAttributes(Validator, Value, PathEl[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EvaluationHelperBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int objectCount;
+
+    private Validator validator;
+    private Value objects;
+    private PathEl[] surfacePath;
+
+    @Setup
+    public void setUp() throws Exception {
+        TransferDescription td = Ili2c.compileIliFiles(
+                new ArrayList<>(Arrays.asList("src/model/NGK_SO_FunctionsExt.ili", "src/test/data/" + BenchmarkData.MODEL_FILE)),
+                new ArrayList<String>());
+        ValidationConfig modelConfig = new ValidationConfig();
+        modelConfig.mergeIliMetaAttrs(td);
+        validator = new Validator(td, modelConfig, new LogCollector(), new LogEventFactory(), new PipelinePool(), new Settings());
+
+        Viewable baseClass = (Viewable) td.getElement(BenchmarkData.BASE_CLASS);
+        surfacePath = validator.parseObjectOrAttributePath(baseClass, "surface").getPathElements();
+
+        List<IomObject> benchmarkObjects = BenchmarkData.createObjects(objectCount, 4, 1, false);
+        objects = new Value(benchmarkObjects);
+    }
+
+    @Benchmark
+    public Object evaluateAttributes() {
+        return EvaluationHelper.evaluateAttributes(validator, objects, surfacePath);
+    }
+}
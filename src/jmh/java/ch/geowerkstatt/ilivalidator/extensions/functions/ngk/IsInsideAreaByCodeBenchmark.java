@@ -0,0 +1,50 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iom.IomObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete validation of both SET CONSTRAINTs of the test model, including code extraction and the sorting of the levels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IsInsideAreaByCodeBenchmark {
+    @Param({"1000", "10000"})
+    public int objectCount;
+
+    @Param({"16", "256"})
+    public int vertexCount;
+
+    @Param({"4", "16"})
+    public int levelCount;
+
+    private ValidationTestHelper validationHelper;
+    private IomObject[] objects;
+
+    @Setup
+    public void setUp() {
+        validationHelper = new ValidationTestHelper(new IsInsideAreaByCodeIoxPlugin());
+        objects = BenchmarkData.createObjects(objectCount, vertexCount, levelCount, false).toArray(new IomObject[0]);
+    }
+
+    @Benchmark
+    public LogCollector validate() throws Exception {
+        return validationHelper.runValidation(new String[]{BenchmarkData.MODEL_FILE}, BenchmarkData.TOPIC, objects);
+    }
+}
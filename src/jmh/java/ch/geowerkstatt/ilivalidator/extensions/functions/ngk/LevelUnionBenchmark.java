@@ -0,0 +1,54 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iom.IomObject;
+import com.vividsolutions.jts.geom.Geometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Union of the converted geometries per code level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LevelUnionBenchmark {
+    @Param({"1000", "10000"})
+    public int objectCount;
+
+    @Param({"16", "256"})
+    public int vertexCount;
+
+    @Param({"2", "4", "16"})
+    public int levelCount;
+
+    private List<List<Geometry>> levels;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<IomObject> objects = BenchmarkData.createObjects(objectCount, vertexCount, levelCount, false);
+        levels = BenchmarkData.groupByLevel(objects, BenchmarkData.convertSurfaces(objects), levelCount);
+    }
+
+    @Benchmark
+    public void unionLevels(Blackhole blackhole) {
+        for (List<Geometry> level : levels) {
+            blackhole.consume(GeometryHelper.union(level));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iom.IomObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of INTERLIS surfaces to JTS geometries (see {@code IsInsideAreaByCodeIoxPlugin.getGeometryValue}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SurfaceConversionBenchmark {
+    @Param({"1000", "10000"})
+    public int objectCount;
+
+    @Param({"16", "256"})
+    public int vertexCount;
+
+    private List<IomObject> objects;
+
+    @Setup
+    public void setUp() {
+        objects = BenchmarkData.createObjects(objectCount, vertexCount, 1, false);
+    }
+
+    @Benchmark
+    public Object convertSurfaces() throws Exception {
+        return BenchmarkData.convertSurfaces(objects);
+    }
+}
@@ -3,6 +3,7 @@ package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
 import ch.ehi.basics.settings.Settings;
 import ch.interlis.ili2c.metamodel.TransferDescription;
 import ch.interlis.iom.IomObject;
+import ch.interlis.iox.IoxLogging;
 import ch.interlis.iox.IoxValidationConfig;
 import ch.interlis.iox_j.logging.LogEventFactory;
 import ch.interlis.iox_j.validator.InterlisFunction;
@@ -17,15 +18,27 @@ public abstract class BaseInterlisFunction implements InterlisFunction {
     protected Settings settings;
     protected Validator validator;
     protected ObjectPool objectPool;
+    protected ModelElementCache modelCache;
+    private IoxValidationConfig validationConfig;
+    private IomObject dataObj;
+    private FunctionMetrics metrics;
+    private FunctionMetrics validationMetrics;
 
     @Override
     public final void init(TransferDescription td, Settings settings, IoxValidationConfig validationConfig, ObjectPool objectPool, LogEventFactory logEventFactory) {
         this.logger = logEventFactory;
         this.logger.setValidationConfig(validationConfig);
+        this.validationConfig = validationConfig;
         this.td = td;
         this.settings = settings;
         this.validator = (Validator) settings.getTransientObject(IOX_VALIDATOR);
         this.objectPool = objectPool;
+        this.modelCache = ModelElementCache.getInstance(settings, td);
+        if (FunctionSettings.getBoolean(settings, FunctionSettings.METRICS, false)) {
+            // The shared instance aggregates all validations for the MBean, the summary in the log covers this validation only.
+            this.metrics = FunctionMetrics.getInstance();
+            this.validationMetrics = new FunctionMetrics();
+        }
     }
 
     @Override
@@ -38,8 +51,64 @@ public abstract class BaseInterlisFunction implements InterlisFunction {
         }
 
         logger.setDataObj(mainObj);
+        dataObj = mainObj;
+
+        if (metrics == null) {
+            return evaluateInternal(validationKind, usageScope, mainObj, actualArguments);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return evaluateInternal(validationKind, usageScope, mainObj, actualArguments);
+        } finally {
+            recordElapsedTime(usageScope, "evaluationTime", start);
+            recordMetric(usageScope, "evaluations", 1);
+
+            // Set constraints are evaluated once per object set without main object, constraints per object would log one summary per object.
+            if (mainObj == null) {
+                logger.addEvent(logger.logInfoMsg("{0}: {1} metrics: {2}", usageScope, getQualifiedIliName(), validationMetrics.getSummary(usageScope)));
+            }
+        }
+    }
+
+    /**
+     * Check whether {@link FunctionSettings#METRICS} is enabled, use it to skip work only needed for metrics.
+     */
+    protected final boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * Add {@code value} to the {@code counter} of the constraint {@code usageScope} if metrics are enabled.
+     */
+    protected final void recordMetric(String usageScope, String counter, long value) {
+        if (metrics != null) {
+            metrics.add(usageScope, counter, value);
+            validationMetrics.add(usageScope, counter, value);
+        }
+    }
+
+    /**
+     * Add the time elapsed since {@code startNanos} to the timing {@code counter} of the constraint {@code usageScope} if metrics are enabled.
+     */
+    protected final void recordElapsedTime(String usageScope, String counter, long startNanos) {
+        if (metrics != null) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            metrics.add(usageScope, counter, elapsedNanos);
+            validationMetrics.add(usageScope, counter, elapsedNanos);
+        }
+    }
 
-        return evaluateInternal(validationKind, usageScope, mainObj, actualArguments);
+    /**
+     * Create a {@link LogEventFactory} with the same configuration as {@link #logger} which sends its events to {@code target}.
+     * Use this for work running on other threads and emit the collected events afterwards in a deterministic order.
+     */
+    protected final LogEventFactory createLogger(IoxLogging target) {
+        LogEventFactory factory = new LogEventFactory();
+        factory.setLogger(target);
+        factory.setValidationConfig(validationConfig);
+        factory.setDataObj(dataObj);
+        return factory;
     }
 
     protected abstract Value evaluateInternal(String validationKind, String usageScope, IomObject mainObj, Value[] actualArguments);
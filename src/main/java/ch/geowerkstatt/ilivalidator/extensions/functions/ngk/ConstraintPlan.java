@@ -0,0 +1,127 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.ili2c.metamodel.EnumerationType;
+import ch.interlis.ili2c.metamodel.NumericType;
+import ch.interlis.ili2c.metamodel.PathEl;
+import ch.interlis.ili2c.metamodel.Type;
+import ch.interlis.iom.IomObject;
+import ch.interlis.iox_j.validator.Validator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled form of an {@code IsInsideAreaByCode} constraint for one class: the parsed geometry and code paths,
+ * the kind of the code attribute and, for enumerations, the ordinal of every enumeration value and a rank table indexed by it.
+ * Plans are immutable and cached in the {@link ModelElementCache}, so they are compiled once per
+ * (class, geometry path, code path).
+ */
+final class ConstraintPlan {
+
+    /**
+     * How the levels of the code attribute are ordered.
+     */
+    enum CodeKind {
+        /** Ordered by the number after the last underscore of the enumeration value. */
+        ENUMERATION,
+        /** Ordered by the numeric value. */
+        NUMERIC,
+        /** The type of the code attribute is not supported. */
+        UNSUPPORTED
+    }
+
+    private final PathEl[] geometryPath;
+    private final PathEl[] codePath;
+    private final Type codeType;
+    private final CodeKind codeKind;
+    private final Map<String, Integer> enumOrdinals;
+    private final int[] enumRanks;
+    private final SurfaceConverter surfaceConverter;
+
+    ConstraintPlan(PathEl[] geometryPath, PathEl[] codePath, SurfaceConverter surfaceConverter) {
+        this.geometryPath = geometryPath;
+        this.codePath = codePath;
+        this.surfaceConverter = surfaceConverter;
+        this.codeType = EvaluationHelper.getAttributeType(codePath);
+
+        if (codeType instanceof EnumerationType) {
+            List<String> values = ((EnumerationType) codeType).getValues();
+            Map<String, Integer> ordinals = new HashMap<>();
+            int[] ranks = new int[values.size()];
+            for (int i = 0; i < values.size(); i++) {
+                ordinals.put(values.get(i), i);
+                ranks[i] = parseRank(values.get(i));
+            }
+            this.codeKind = CodeKind.ENUMERATION;
+            this.enumOrdinals = Collections.unmodifiableMap(ordinals);
+            this.enumRanks = ranks;
+        } else {
+            this.codeKind = codeType instanceof NumericType ? CodeKind.NUMERIC : CodeKind.UNSUPPORTED;
+            this.enumOrdinals = Collections.emptyMap();
+            this.enumRanks = new int[0];
+        }
+    }
+
+    PathEl[] getGeometryPath() {
+        return geometryPath;
+    }
+
+    Type getCodeType() {
+        return codeType;
+    }
+
+    CodeKind getCodeKind() {
+        return codeKind;
+    }
+
+    SurfaceConverter getSurfaceConverter() {
+        return surfaceConverter;
+    }
+
+    /**
+     * Get the code of {@code object}.
+     *
+     * @return the code as string or {@code null} if it is undefined.
+     */
+    String getCode(Validator validator, IomObject object) {
+        return EvaluationHelper.getAttributeString(validator, object, codePath);
+    }
+
+    /**
+     * Get the number of values of the enumeration, {@code 0} if the code is not an enumeration.
+     */
+    int getEnumValueCount() {
+        return enumRanks.length;
+    }
+
+    /**
+     * Get the position of the enumeration value {@code code} in the enumeration.
+     * The codes are read as strings, so this is the only lookup by string, all further lookups use the ordinal.
+     *
+     * @return the ordinal or {@code -1} if {@code code} is not a value of the enumeration.
+     */
+    int getEnumOrdinal(String code) {
+        Integer ordinal = enumOrdinals.get(code);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Get the sort rank of the enumeration value {@code code}, which is the number after its last underscore.
+     *
+     * @return the rank or {@link Integer#MAX_VALUE} if the value does not end with a number.
+     */
+    int getEnumRank(String code) {
+        int ordinal = getEnumOrdinal(code);
+        return ordinal >= 0 ? enumRanks[ordinal] : parseRank(code);
+    }
+
+    private static int parseRank(String code) {
+        try {
+            return Integer.parseInt(code.substring(code.lastIndexOf('_') + 1));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+}
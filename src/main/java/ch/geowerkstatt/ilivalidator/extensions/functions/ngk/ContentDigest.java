@@ -0,0 +1,90 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iom.IomObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 digest of an ordered sequence of strings and objects, used as collision resistant key of persisted results.
+ * Each string is written with its length and {@code null} with a marker, so different sequences never result in the same input.
+ */
+final class ContentDigest {
+    private static final int NULL_LENGTH = -1;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    ContentDigest() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Add the next string.
+     */
+    ContentDigest add(String value) {
+        if (value == null) {
+            addInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            addInt(bytes.length);
+            digest.update(bytes);
+        }
+        return this;
+    }
+
+    /**
+     * Add the content of {@code object}: its tag and all attribute names and values, including structured values.
+     * The object id is not added.
+     */
+    ContentDigest add(IomObject object) {
+        add(object.getobjecttag());
+        int attributeCount = object.getattrcount();
+        addInt(attributeCount);
+        for (int i = 0; i < attributeCount; i++) {
+            String name = object.getattrname(i);
+            add(name);
+            int valueCount = object.getattrvaluecount(name);
+            addInt(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                IomObject value = object.getattrobj(name, j);
+                if (value != null) {
+                    digest.update((byte) 1);
+                    add(value);
+                } else {
+                    digest.update((byte) 0);
+                    add(object.getattrprim(name, j));
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Complete the digest.
+     *
+     * @return the digest as 64 lower case hexadecimal digits.
+     */
+    String toHex() {
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private void addInt(int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+}
@@ -0,0 +1,228 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.algorithm.locate.IndexedPointInAreaLocator;
+import com.vividsolutions.jts.algorithm.locate.PointOnGeometryLocator;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Location;
+import com.vividsolutions.jts.geom.Polygonal;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.geom.prep.PreparedPolygon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class CoverageHelper {
+    private static final int MIN_LOCALIZED_VERTICES = 500;
+    private static final double NEIGHBOURHOOD_FACTOR = 10;
+
+    private CoverageHelper() {
+        // Utility class
+    }
+
+    /**
+     * Check whether {@code outer} covers {@code inner}. Only the components of {@code inner} which are not covered
+     * (see {@link #getUncoveredComponents(Geometry, Geometry)}) are passed to the full difference overlay.
+     */
+    public static CoverageResult checkCoverage(Geometry outer, Geometry inner) {
+        List<Geometry> uncoveredComponents = getUncoveredComponents(outer, inner);
+        if (uncoveredComponents.isEmpty()) {
+            return CoverageResult.covered();
+        }
+
+        Geometry uncovered = uncoveredComponents.size() == 1 ? uncoveredComponents.get(0) : inner.getFactory().buildGeometry(uncoveredComponents);
+        return CoverageResult.uncovered(uncovered, uncovered.difference(outer));
+    }
+
+    /**
+     * Get the components of {@code inner} which are not covered by {@code outer}.
+     * The check is staged to avoid a full overlay for components that are trivially covered:
+     * <ol>
+     *     <li>components whose envelope is not covered by the envelope of {@code outer} are rejected,</li>
+     *     <li>components with a vertex in the exterior of {@code outer} are rejected using an indexed point locator,</li>
+     *     <li>the remaining components are tested with a {@link PreparedGeometry} covers predicate.</li>
+     * </ol>
+     *
+     * @param outer the polygonal geometry which should cover {@code inner}.
+     * @param inner the polygonal geometry to test.
+     *
+     * @return the uncovered components of {@code inner}, or an empty list if {@code outer} covers {@code inner}.
+     */
+    public static List<Geometry> getUncoveredComponents(Geometry outer, Geometry inner) {
+        return getUncoveredComponents(outer, inner, false);
+    }
+
+    /**
+     * Check whether {@code outer} covers {@code inner} with the same stages as {@link #getUncoveredComponents(Geometry, Geometry)},
+     * stopping at the first uncovered component.
+     */
+    public static boolean covers(Geometry outer, Geometry inner) {
+        return getUncoveredComponents(outer, inner, true).isEmpty();
+    }
+
+    private static List<Geometry> getUncoveredComponents(Geometry outer, Geometry inner, boolean stopAtFirst) {
+        if (inner.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Geometry> uncovered = new ArrayList<>();
+        if (outer.isEmpty()) {
+            addNonEmptyComponents(inner, uncovered);
+            return uncovered;
+        }
+
+        if (!(outer instanceof Polygonal)) {
+            if (!outer.covers(inner)) {
+                addNonEmptyComponents(inner, uncovered);
+            }
+            return uncovered;
+        }
+
+        Envelope outerEnvelope = outer.getEnvelopeInternal();
+        PreparedGeometry preparedOuter = null;
+        PointOnGeometryLocator locator = null;
+
+        for (int i = 0; i < inner.getNumGeometries(); i++) {
+            Geometry component = inner.getGeometryN(i);
+            if (component.isEmpty()) {
+                continue;
+            }
+
+            if (!outerEnvelope.covers(component.getEnvelopeInternal())) {
+                uncovered.add(component);
+                if (stopAtFirst) {
+                    break;
+                }
+                continue;
+            }
+
+            if (preparedOuter == null) {
+                preparedOuter = PreparedGeometryFactory.prepare(outer);
+                locator = preparedOuter instanceof PreparedPolygon
+                        ? ((PreparedPolygon) preparedOuter).getPointLocator()
+                        : new IndexedPointInAreaLocator(outer);
+            }
+
+            if (hasExteriorVertex(locator, component) || !preparedOuter.covers(component)) {
+                uncovered.add(component);
+                if (stopAtFirst) {
+                    break;
+                }
+            }
+        }
+
+        return uncovered;
+    }
+
+    /**
+     * Get the area of {@code uncovered} buffered by {@code distance} which is not covered by {@code outer}.
+     * This is used when {@code uncovered} is not covered by {@code outer} but their difference is empty.
+     * Small geometries are buffered as a whole. For components with at least 500 vertices
+     * only the neighbourhoods of the vertices and segment midpoints that do not lie in the interior of {@code outer} are buffered
+     * and compared to {@code outer} clipped to the same neighbourhoods. The component and {@code outer} are clipped once
+     * to all neighbourhoods, so the cost does not grow with the number of neighbourhoods.
+     *
+     * @param outer the polygonal geometry which should cover {@code uncovered}.
+     * @param uncovered the geometry not covered by {@code outer}.
+     * @param distance the buffer distance.
+     *
+     * @return the offending area, an empty geometry if none was found.
+     */
+    public static Geometry locateOffendingArea(Geometry outer, Geometry uncovered, double distance) {
+        if (uncovered.getNumPoints() < MIN_LOCALIZED_VERTICES || outer.isEmpty() || !(outer instanceof Polygonal)) {
+            return uncovered.buffer(distance).difference(outer);
+        }
+
+        PointOnGeometryLocator locator = new IndexedPointInAreaLocator(outer);
+        List<Geometry> parts = new ArrayList<>();
+        for (int i = 0; i < uncovered.getNumGeometries(); i++) {
+            Geometry component = uncovered.getGeometryN(i);
+            if (component.isEmpty()) {
+                continue;
+            }
+            if (component.getNumPoints() < MIN_LOCALIZED_VERTICES) {
+                parts.add(component.buffer(distance).difference(outer));
+                continue;
+            }
+
+            List<Coordinate> centers = getNeighbourhoodCenters(locator, component);
+            if (centers.isEmpty()) {
+                parts.add(component.buffer(distance).difference(outer));
+                continue;
+            }
+
+            double radius = distance * NEIGHBOURHOOD_FACTOR;
+            Geometry clipped = component.intersection(createNeighbourhoods(centers, radius, component.getFactory()));
+            if (clipped.isEmpty()) {
+                continue;
+            }
+
+            // The buffered parts reach up to radius + distance from the centers, the outer neighbourhoods include a margin around that.
+            Geometry localOuter = outer.intersection(createNeighbourhoods(centers, radius + distance * 2, outer.getFactory()));
+            parts.add(clipped.buffer(distance).difference(localOuter));
+        }
+
+        parts.removeIf(Geometry::isEmpty);
+        if (parts.isEmpty()) {
+            return uncovered.getFactory().createGeometryCollection(new Geometry[0]);
+        }
+        return GeometryHelper.union(parts);
+    }
+
+    /**
+     * Get the vertices and segment midpoints of {@code geometry} which are not in the interior of the area of {@code locator}.
+     */
+    private static List<Coordinate> getNeighbourhoodCenters(PointOnGeometryLocator locator, Geometry geometry) {
+        List<Coordinate> centers = new ArrayList<>();
+        Coordinate[] coordinates = geometry.getCoordinates();
+        for (int i = 0; i < coordinates.length; i++) {
+            addNeighbourhoodCenter(locator, coordinates[i], centers);
+            if (i + 1 < coordinates.length) {
+                Coordinate midpoint = new Coordinate((coordinates[i].x + coordinates[i + 1].x) / 2, (coordinates[i].y + coordinates[i + 1].y) / 2);
+                addNeighbourhoodCenter(locator, midpoint, centers);
+            }
+        }
+        return centers;
+    }
+
+    private static void addNeighbourhoodCenter(PointOnGeometryLocator locator, Coordinate coordinate, List<Coordinate> centers) {
+        if (locator.locate(coordinate) != Location.INTERIOR) {
+            centers.add(coordinate);
+        }
+    }
+
+    /**
+     * Get the merged square neighbourhoods of size {@code 2 * radius} around {@code centers}.
+     */
+    private static Geometry createNeighbourhoods(List<Coordinate> centers, double radius, GeometryFactory factory) {
+        List<Geometry> neighbourhoods = new ArrayList<>(centers.size());
+        for (Coordinate center : centers) {
+            Envelope envelope = new Envelope(center);
+            envelope.expandBy(radius);
+            neighbourhoods.add(factory.toGeometry(envelope));
+        }
+        return GeometryHelper.union(neighbourhoods);
+    }
+
+    private static boolean hasExteriorVertex(PointOnGeometryLocator locator, Geometry geometry) {
+        for (Coordinate coordinate : geometry.getCoordinates()) {
+            if (locator.locate(coordinate) == Location.EXTERIOR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addNonEmptyComponents(Geometry geometry, List<Geometry> components) {
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry component = geometry.getGeometryN(i);
+            if (!component.isEmpty()) {
+                components.add(component);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Result of the check whether an outer geometry covers an inner geometry.
+ */
+public final class CoverageResult {
+    private static final CoverageResult COVERED = new CoverageResult(null, null);
+
+    private final Geometry uncovered;
+    private final Geometry offending;
+
+    private CoverageResult(Geometry uncovered, Geometry offending) {
+        this.uncovered = uncovered;
+        this.offending = offending;
+    }
+
+    /**
+     * Get the result for an inner geometry which is covered completely.
+     */
+    public static CoverageResult covered() {
+        return COVERED;
+    }
+
+    /**
+     * Get the result for an inner geometry which is not covered completely.
+     *
+     * @param uncovered the parts of the inner geometry which are not covered.
+     * @param offending the difference of {@code uncovered} and the outer geometry, may be empty due to robustness issues.
+     */
+    public static CoverageResult uncovered(Geometry uncovered, Geometry offending) {
+        return new CoverageResult(uncovered, offending);
+    }
+
+    /**
+     * Check whether the inner geometry is covered completely.
+     */
+    public boolean isCovered() {
+        return uncovered == null;
+    }
+
+    /**
+     * Get the parts of the inner geometry which are not covered, {@code null} if the inner geometry is covered.
+     */
+    public Geometry getUncovered() {
+        return uncovered;
+    }
+
+    /**
+     * Get the part of the inner geometry outside the outer geometry, {@code null} if the inner geometry is covered.
+     */
+    public Geometry getOffending() {
+        return offending;
+    }
+}
@@ -2,10 +2,18 @@ package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
 
 import ch.ehi.basics.logging.EhiLogger;
 import ch.interlis.ili2c.Ili2cException;
+import ch.interlis.ili2c.metamodel.AttributeRef;
+import ch.interlis.ili2c.metamodel.CoordType;
+import ch.interlis.ili2c.metamodel.Domain;
 import ch.interlis.ili2c.metamodel.Element;
+import ch.interlis.ili2c.metamodel.NumericType;
+import ch.interlis.ili2c.metamodel.NumericalType;
 import ch.interlis.ili2c.metamodel.ObjectPath;
 import ch.interlis.ili2c.metamodel.PathEl;
+import ch.interlis.ili2c.metamodel.PrecisionDecimal;
+import ch.interlis.ili2c.metamodel.SurfaceOrAreaType;
 import ch.interlis.ili2c.metamodel.TransferDescription;
+import ch.interlis.ili2c.metamodel.Type;
 import ch.interlis.ili2c.metamodel.Viewable;
 import ch.interlis.iom.IomObject;
 import ch.interlis.iox_j.validator.Validator;
@@ -13,6 +21,7 @@ import ch.interlis.iox_j.validator.Value;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 
 public final class EvaluationHelper {
@@ -42,6 +51,15 @@ public final class EvaluationHelper {
         return null;
     }
 
+    /**
+     * Parse the {@code argPath} into a {@link PathEl} array, using the already parsed path from {@code cache} if available.
+     *
+     * @see #getAttributePathEl(Validator, Viewable, Value)
+     */
+    public static PathEl[] getAttributePathEl(ModelElementCache cache, Validator validator, Viewable<Element> contextClass, Value argPath) {
+        return cache.getAttributePath(contextClass, argPath.getValue(), path -> getAttributePathEl(validator, contextClass, argPath));
+    }
+
     /**
      * Get the {@link Viewable} (e.g. the class definition) from the {@link TransferDescription}.
      * If the {@code iomObject} is {@code null}, the {@code argObjects} is used to retrieve the {@link Viewable}.
@@ -61,6 +79,26 @@ public final class EvaluationHelper {
         return null;
     }
 
+    /**
+     * Get the {@link Viewable} (e.g. the class definition) using the lookups cached in {@code cache}.
+     *
+     * @see #getContextClass(TransferDescription, IomObject, Value)
+     */
+    public static Viewable getContextClass(ModelElementCache cache, IomObject iomObject, Value argObjects) {
+        if (iomObject != null) {
+            return cache.getViewable(iomObject.getobjecttag());
+        } else if (argObjects.getViewable() != null) {
+            return argObjects.getViewable();
+        } else if (argObjects.getComplexObjects() != null) {
+            Iterator<IomObject> it = argObjects.getComplexObjects().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            return cache.getViewable(it.next().getobjecttag());
+        }
+        return null;
+    }
+
     /**
      * Get the collection of {@link IomObject} inside {@code argObjects} by following the provided {@code attributePath}.
      */
@@ -76,4 +114,112 @@ public final class EvaluationHelper {
 
         return attributes;
     }
+
+    /**
+     * Get the collection of {@link IomObject} of the single {@code object} by following the provided {@code attributePath}.
+     * Paths consisting of one attribute are read directly from {@code object}, other paths are resolved by the {@code validator}.
+     *
+     * @see #evaluateAttributes(Validator, Value, PathEl[])
+     */
+    public static Collection<IomObject> evaluateAttributes(Validator validator, IomObject object, PathEl[] attributePath) {
+        String attributeName = getDirectAttributeName(attributePath);
+        if (attributeName == null) {
+            return evaluateAttributes(validator, new Value(Collections.singletonList(object)), attributePath);
+        }
+
+        int count = object.getattrvaluecount(attributeName);
+        if (count == 1) {
+            IomObject attribute = object.getattrobj(attributeName, 0);
+            return attribute == null ? Collections.emptyList() : Collections.singletonList(attribute);
+        }
+
+        Collection<IomObject> attributes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            IomObject attribute = object.getattrobj(attributeName, i);
+            if (attribute != null) {
+                attributes.add(attribute);
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Get the value of {@code object} at {@code attributePath} as string. Paths consisting of one attribute with a primitive value
+     * are read directly from {@code object} without creating a {@link Value}, other paths are resolved by the {@code validator}.
+     *
+     * @return the string value or {@code null} if the value is undefined.
+     */
+    public static String getAttributeString(Validator validator, IomObject object, PathEl[] attributePath) {
+        String attributeName = getDirectAttributeName(attributePath);
+        if (attributeName != null) {
+            String value = object.getattrvalue(attributeName);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        Value value = validator.getValueFromObjectPath(null, object, attributePath, null);
+        return value.isUndefined() || value.skipEvaluation() ? null : value.getValue();
+    }
+
+    /**
+     * Get the type of the attribute at the end of {@code attributePath}.
+     *
+     * @return the type with aliases resolved or {@code null} if the path does not end in an attribute.
+     */
+    public static Type getAttributeType(PathEl[] attributePath) {
+        if (attributePath == null || attributePath.length == 0 || !(attributePath[attributePath.length - 1] instanceof AttributeRef)) {
+            return null;
+        }
+        return ((AttributeRef) attributePath[attributePath.length - 1]).getAttr().getDomainResolvingAliases();
+    }
+
+    private static String getDirectAttributeName(PathEl[] attributePath) {
+        if (attributePath == null || attributePath.length != 1 || !(attributePath[0] instanceof AttributeRef)) {
+            return null;
+        }
+        return ((AttributeRef) attributePath[0]).getAttr().getName();
+    }
+
+    /**
+     * Get the {@link CoordType} of the control points of the surface or area attribute at the end of {@code attributePath}.
+     *
+     * @return the {@link CoordType} or {@code null} if the path does not end in a surface or area attribute.
+     */
+    public static CoordType getControlPointType(PathEl[] attributePath) {
+        Type type = getAttributeType(attributePath);
+        if (!(type instanceof SurfaceOrAreaType)) {
+            return null;
+        }
+
+        Domain controlPointDomain = ((SurfaceOrAreaType) type).getControlPointDomain();
+        if (controlPointDomain == null || !(controlPointDomain.getType() instanceof CoordType)) {
+            return null;
+        }
+        return (CoordType) controlPointDomain.getType();
+    }
+
+    /**
+     * Get the number of decimal places of the coordinates of {@code coordType}, e.g. {@code 3} for {@code COORD 0.000 .. 2870000.000}.
+     *
+     * @return the highest accuracy of all dimensions or {@code -1} if it is not defined.
+     */
+    public static int getCoordinateAccuracy(CoordType coordType) {
+        int accuracy = -1;
+        if (coordType == null || coordType.getDimensions() == null) {
+            return accuracy;
+        }
+
+        for (NumericalType dimension : coordType.getDimensions()) {
+            if (dimension instanceof NumericType) {
+                accuracy = Math.max(accuracy, getAccuracy(((NumericType) dimension).getMinimum()));
+                accuracy = Math.max(accuracy, getAccuracy(((NumericType) dimension).getMaximum()));
+            }
+        }
+        return accuracy;
+    }
+
+    private static int getAccuracy(PrecisionDecimal value) {
+        return value == null ? -1 : value.getAccuracy();
+    }
 }
@@ -0,0 +1,104 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.ehi.basics.logging.EhiLogger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counters and timings of the function evaluations per constraint, available through JMX as
+ * {@code ch.geowerkstatt.ilivalidator.extensions.functions.ngk:type=FunctionMetrics}.
+ * Counters with a name ending in {@code Time} hold nanoseconds and are reported in milliseconds.
+ */
+public final class FunctionMetrics implements FunctionMetricsMBean {
+    private static final String OBJECT_NAME = "ch.geowerkstatt.ilivalidator.extensions.functions.ngk:type=FunctionMetrics";
+    private static final String TIME_SUFFIX = "Time";
+    private static final FunctionMetrics INSTANCE = new FunctionMetrics();
+
+    private final Map<String, Map<String, LongAdder>> countersByConstraint = new ConcurrentSkipListMap<>();
+    private volatile boolean isRegistered;
+
+    /**
+     * Create metrics which are not registered as MBean, e.g. for the evaluations of one validation.
+     */
+    FunctionMetrics() {
+    }
+
+    /**
+     * Get the shared metrics instance of all validations and register it as MBean on first use.
+     */
+    public static FunctionMetrics getInstance() {
+        INSTANCE.register();
+        return INSTANCE;
+    }
+
+    /**
+     * Add {@code value} to the {@code counter} of {@code constraint}.
+     */
+    public void add(String constraint, String counter, long value) {
+        countersByConstraint
+                .computeIfAbsent(constraint, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(counter, c -> new LongAdder())
+                .add(value);
+    }
+
+    /**
+     * Get a summary of all counters of {@code constraint}, e.g. {@code evaluations=1, evaluationTime=12ms}.
+     */
+    public String getSummary(String constraint) {
+        Map<String, LongAdder> counters = countersByConstraint.get(constraint);
+        if (counters == null) {
+            return "";
+        }
+
+        return new ConcurrentSkipListMap<>(counters).entrySet()
+                .stream()
+                .map(e -> e.getKey().endsWith(TIME_SUFFIX)
+                        ? e.getKey() + "=" + TimeUnit.NANOSECONDS.toMillis(e.getValue().sum()) + "ms"
+                        : e.getKey() + "=" + e.getValue().sum())
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public String[] getConstraintSummaries() {
+        return countersByConstraint.keySet()
+                .stream()
+                .map(constraint -> constraint + ": " + getSummary(constraint))
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public void reset() {
+        countersByConstraint.clear();
+    }
+
+    private void register() {
+        if (isRegistered) {
+            return;
+        }
+
+        synchronized (this) {
+            if (isRegistered) {
+                return;
+            }
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(this, name);
+                }
+            } catch (JMException | SecurityException e) {
+                EhiLogger.logError(e);
+            }
+            isRegistered = true;
+        }
+    }
+}
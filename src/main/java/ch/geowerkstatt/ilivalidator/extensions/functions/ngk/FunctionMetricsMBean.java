@@ -0,0 +1,17 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+/**
+ * JMX interface of {@link FunctionMetrics}.
+ */
+public interface FunctionMetricsMBean {
+
+    /**
+     * Get one summary line with all counters per constraint.
+     */
+    String[] getConstraintSummaries();
+
+    /**
+     * Reset all counters.
+     */
+    void reset();
+}
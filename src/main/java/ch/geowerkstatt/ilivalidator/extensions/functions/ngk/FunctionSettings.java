@@ -0,0 +1,207 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.ehi.basics.settings.Settings;
+
+public final class FunctionSettings {
+
+    private static final String PREFIX = "ch.geowerkstatt.ilivalidator.extensions.functions.ngk.";
+
+    /**
+     * Maximum number of results kept in the result cache of a validator.
+     */
+    public static final String CACHE_MAX_ENTRIES = PREFIX + "cacheMaxEntries";
+
+    /**
+     * Maximum total weight (number of objects the cached results were computed for) of the result cache of a validator.
+     */
+    public static final String CACHE_MAX_WEIGHT = PREFIX + "cacheMaxWeight";
+
+    /**
+     * Enable parallel geometry conversion, union and level pair checks ({@code true} or {@code false}, default {@code false}).
+     */
+    public static final String PARALLEL = PREFIX + "parallel";
+
+    /**
+     * Maximum number of threads used if {@link #PARALLEL} is enabled (default: number of available processors).
+     */
+    public static final String PARALLELISM = PREFIX + "parallelism";
+
+    /**
+     * Fold converted geometries into per-code partial unions every n objects instead of holding all of them
+     * until the union. Incremental accumulation runs sequentially. If not set, sequential evaluations fold every 1000 objects
+     * and parallel evaluations ({@link #PARALLEL}) union the complete levels on a fork/join pool.
+     */
+    public static final String INCREMENTAL_BATCH_SIZE = PREFIX + "incrementalBatchSize";
+
+    /**
+     * Size of the square tiles (in coordinate units) used to check each pair of levels tile by tile on the levels clipped to the tiles
+     * (default {@code 0}, disabled). The tiles are computed in parallel if {@link #PARALLEL} is enabled and there is only one pair of levels.
+     */
+    public static final String TILE_SIZE = PREFIX + "tileSize";
+
+    /**
+     * Check each polygon of a level against the polygons of the next level it intersects instead of unioning the levels
+     * ({@code true} or {@code false}, default {@code false}). Takes precedence over {@link #TILE_SIZE} and {@link #INCREMENTAL_BATCH_SIZE},
+     * not used with {@link #SPILL_MEMORY_BUDGET}.
+     */
+    public static final String LOCAL_COVERAGE = PREFIX + "localCoverage";
+
+    /**
+     * Maximum deviation (in coordinate units) of the straight segments approximating arcs of surfaces
+     * (default: half the resolution of the control point coordinates of the surface attribute).
+     */
+    public static final String ARC_TOLERANCE = PREFIX + "arcTolerance";
+
+    /**
+     * Remove repeated and collinear vertices from the converted surfaces ({@code true} or {@code false}, default {@code false}).
+     * Removing them does not change the covered area, but can change where union and difference node the rings
+     * and thereby the reported topological errors (missing support points).
+     */
+    public static final String REMOVE_REDUNDANT_VERTICES = PREFIX + "removeRedundantVertices";
+
+    /**
+     * Reduce the converted surfaces to the fixed precision of their control point coordinates, e.g. 3 decimal places
+     * for {@code COORD 0.000 .. 2870000.000}, so union and difference run on the model's coordinate grid
+     * ({@code true} or {@code false}, default {@code false}).
+     */
+    public static final String FIXED_PRECISION = PREFIX + "fixedPrecision";
+
+    /**
+     * Store the coordinates of converted surfaces and their unions in packed double arrays (16 bytes per vertex)
+     * instead of one {@code Coordinate} object per vertex ({@code true} or {@code false}, default {@code false}).
+     * This reduces the heap needed for large deliveries at the cost of some conversion time.
+     */
+    public static final String PACKED_COORDINATES = PREFIX + "packedCoordinates";
+
+    /**
+     * Memory budget in megabytes for the converted geometries of one evaluation (default {@code 0}, disabled).
+     * If the estimated size exceeds the budget, the geometries of each code level are written to temporary files,
+     * unioned from there and the levels are read back one pair at a time. Spilling runs sequentially.
+     */
+    public static final String SPILL_MEMORY_BUDGET = PREFIX + "spillMemoryBudget";
+
+    /**
+     * Directory for the temporary files of {@link #SPILL_MEMORY_BUDGET} (default: the system temporary directory).
+     */
+    public static final String SPILL_DIRECTORY = PREFIX + "spillDirectory";
+
+    /**
+     * Convert every surface once and share the converted geometries between all constraints evaluated on the same objects
+     * ({@code true} or {@code false}, default {@code true}). Not used with {@link #INCREMENTAL_BATCH_SIZE} or {@link #SPILL_MEMORY_BUDGET},
+     * because the shared geometries are kept until another object set is evaluated.
+     */
+    public static final String SHARE_GEOMETRIES = PREFIX + "shareGeometries";
+
+    /**
+     * Stop at the first level pair which is not covered and report it without computing the offending geometry
+     * ({@code true} or {@code false}, default {@code false}). Use this for a cheap pass/fail check.
+     */
+    public static final String FAIL_FAST = PREFIX + "failFast";
+
+    /**
+     * Directory of a result cache kept across validation runs (default: none, disabled). The results are keyed by the content
+     * of the objects (code and geometry), the attribute paths, the build of the plugin and the settings affecting the result.
+     * On a hit the result is returned without evaluation and the original log events are replayed.
+     * The cache is not used if the plugin was not built with a build id, e.g. when running from an IDE without the Gradle build.
+     */
+    public static final String RESULT_CACHE_DIRECTORY = PREFIX + "resultCacheDirectory";
+
+    /**
+     * Record counters and timings per constraint ({@code true} or {@code false}, default {@code false}).
+     * A summary of the current validation is logged as info after each evaluation of a set constraint, i.e. once per object set.
+     * The counters of all constraints and validations are available through the MBean {@link FunctionMetrics}.
+     */
+    public static final String METRICS = PREFIX + "metrics";
+
+    private FunctionSettings() {
+        // Utility class
+    }
+
+    /**
+     * Get the setting {@code key} as boolean.
+     *
+     * @return {@code true} if the setting is {@code true} (ignoring case), {@code defaultValue} if the setting is missing.
+     */
+    public static boolean getBoolean(Settings settings, String key, boolean defaultValue) {
+        String value = getValue(settings, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Get the setting {@code key} as string.
+     *
+     * @return the trimmed value or {@code defaultValue} if the setting is missing or empty.
+     */
+    public static String getString(Settings settings, String key, String defaultValue) {
+        String value = getValue(settings, key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Get the number of threads to use for parallel work, {@code 1} if parallel processing is disabled.
+     */
+    public static int getParallelism(Settings settings) {
+        if (!getBoolean(settings, PARALLEL, false)) {
+            return 1;
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(processors, getInt(settings, PARALLELISM, processors)));
+    }
+
+    /**
+     * Get the setting {@code key} as double.
+     *
+     * @return the parsed value or {@code defaultValue} if the setting is missing or not a valid number.
+     */
+    public static double getDouble(Settings settings, String key, double defaultValue) {
+        String value = getValue(settings, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Get the setting {@code key} as integer.
+     *
+     * @return the parsed value or {@code defaultValue} if the setting is missing or not a valid integer.
+     */
+    public static int getInt(Settings settings, String key, int defaultValue) {
+        return (int) getLong(settings, key, defaultValue);
+    }
+
+    /**
+     * Get the setting {@code key} as long.
+     *
+     * @return the parsed value or {@code defaultValue} if the setting is missing or not a valid long.
+     */
+    public static long getLong(Settings settings, String key, long defaultValue) {
+        String value = getValue(settings, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String getValue(Settings settings, String key) {
+        if (settings == null) {
+            return null;
+        }
+        String value = settings.getValue(key);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+}
@@ -0,0 +1,126 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateArrays;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.operation.union.UnaryUnionOp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class GeometryHelper {
+
+    private GeometryHelper() {
+        // Utility class
+    }
+
+    /**
+     * Union all {@code geometries} at once. For polygons this uses a cascaded union,
+     * which merges the geometries in STRtree order as a tree reduction instead of
+     * unioning them one by one into a growing accumulator.
+     *
+     * @param geometries the geometries to union, must not be empty.
+     *
+     * @return the union or the geometry itself if {@code geometries} contains only one element.
+     */
+    public static Geometry union(List<Geometry> geometries) {
+        if (geometries.size() == 1) {
+            return geometries.get(0);
+        }
+        return UnaryUnionOp.union(geometries);
+    }
+
+    /**
+     * Remove repeated vertices and vertices lying exactly on the straight line between their neighbours
+     * from all rings of a polygonal {@code geometry}. The area covered by the geometry is not changed.
+     *
+     * @return the reduced geometry, {@code geometry} itself if it is not polygonal or has no redundant vertices.
+     */
+    public static Geometry removeRedundantVertices(Geometry geometry) {
+        if (geometry instanceof Polygon) {
+            return removeRedundantVertices((Polygon) geometry);
+        } else if (geometry instanceof MultiPolygon) {
+            Polygon[] polygons = new Polygon[geometry.getNumGeometries()];
+            boolean isChanged = false;
+            for (int i = 0; i < polygons.length; i++) {
+                Polygon polygon = (Polygon) geometry.getGeometryN(i);
+                polygons[i] = removeRedundantVertices(polygon);
+                isChanged |= polygons[i] != polygon;
+            }
+            return isChanged ? geometry.getFactory().createMultiPolygon(polygons) : geometry;
+        }
+        return geometry;
+    }
+
+    private static Polygon removeRedundantVertices(Polygon polygon) {
+        if (polygon.isEmpty()) {
+            return polygon;
+        }
+
+        GeometryFactory factory = polygon.getFactory();
+        Coordinate[] shellCoordinates = polygon.getExteriorRing().getCoordinates();
+        Coordinate[] shell = removeRedundantVertices(shellCoordinates);
+        boolean isChanged = shell != shellCoordinates;
+
+        Coordinate[][] holes = new Coordinate[polygon.getNumInteriorRing()][];
+        for (int i = 0; i < holes.length; i++) {
+            Coordinate[] holeCoordinates = polygon.getInteriorRingN(i).getCoordinates();
+            holes[i] = removeRedundantVertices(holeCoordinates);
+            isChanged |= holes[i] != holeCoordinates;
+        }
+
+        if (!isChanged) {
+            return polygon;
+        }
+
+        LinearRing[] holeRings = new LinearRing[holes.length];
+        for (int i = 0; i < holes.length; i++) {
+            holeRings[i] = factory.createLinearRing(holes[i]);
+        }
+        return factory.createPolygon(factory.createLinearRing(shell), holeRings);
+    }
+
+    private static Coordinate[] removeRedundantVertices(Coordinate[] ring) {
+        Coordinate[] unique = CoordinateArrays.removeRepeatedPoints(ring);
+
+        // The ring is closed, the last coordinate equals the first one.
+        int vertexCount = unique.length - 1;
+        if (vertexCount < 3) {
+            return ring;
+        }
+
+        List<Coordinate> kept = new ArrayList<>(unique.length);
+        kept.add(unique[0]);
+        for (int i = 1; i < vertexCount; i++) {
+            if (!isRedundant(kept.get(kept.size() - 1), unique[i], unique[i + 1])) {
+                kept.add(unique[i]);
+            }
+        }
+        if (kept.size() > 3 && isRedundant(kept.get(kept.size() - 1), kept.get(0), kept.get(1))) {
+            kept.remove(0);
+        }
+
+        if (kept.size() < 3 || (kept.size() == vertexCount && unique.length == ring.length)) {
+            return ring;
+        }
+        kept.add(kept.get(0));
+        return kept.toArray(new Coordinate[0]);
+    }
+
+    /**
+     * Check whether {@code vertex} lies on the segment between {@code previous} and {@code next},
+     * so removing it does not change the ring. Spikes (going back on the same line) are kept.
+     */
+    private static boolean isRedundant(Coordinate previous, Coordinate vertex, Coordinate next) {
+        if (CGAlgorithms.orientationIndex(previous, vertex, next) != CGAlgorithms.COLLINEAR) {
+            return false;
+        }
+        double dot = (vertex.x - previous.x) * (next.x - vertex.x) + (vertex.y - previous.y) * (next.y - vertex.y);
+        return dot > 0;
+    }
+}
@@ -0,0 +1,32 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converted geometries of one object set (e.g. all objects of a class in a basket), shared by all constraints evaluated on it.
+ * The geometries are stored per attribute path and object id, so every surface is converted once
+ * no matter how many constraints group it by different codes.
+ * The stored geometries must not be modified, except for their user data which is overwritten by each evaluation.
+ */
+final class GeometryStore {
+    private final ObjectSetFingerprint objectSet;
+    private final Map<String, Map<String, Geometry>> geometriesByPath = new ConcurrentHashMap<>();
+
+    GeometryStore(ObjectSetFingerprint objectSet) {
+        this.objectSet = objectSet;
+    }
+
+    ObjectSetFingerprint getObjectSet() {
+        return objectSet;
+    }
+
+    /**
+     * Get the converted geometries of the attribute {@code attributePath} by object id.
+     */
+    Map<String, Geometry> getGeometries(String attributePath) {
+        return geometriesByPath.computeIfAbsent(attributePath, p -> new ConcurrentHashMap<>());
+    }
+}
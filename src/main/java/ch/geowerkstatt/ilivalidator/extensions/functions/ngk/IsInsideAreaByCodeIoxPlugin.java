@@ -1,29 +1,61 @@
 package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
 
-import ch.ehi.basics.types.OutParam;
-import ch.interlis.ili2c.metamodel.EnumerationType;
-import ch.interlis.ili2c.metamodel.NumericType;
+import ch.interlis.ili2c.metamodel.CoordType;
 import ch.interlis.ili2c.metamodel.PathEl;
-import ch.interlis.ili2c.metamodel.Type;
+import ch.interlis.ili2c.metamodel.RuntimeParameters;
 import ch.interlis.ili2c.metamodel.Viewable;
 import ch.interlis.iom.IomObject;
-import ch.interlis.iox_j.jts.Iox2jtsext;
+import ch.interlis.iox_j.logging.LogEventFactory;
+import ch.interlis.iox_j.validator.Validator;
 import ch.interlis.iox_j.validator.Value;
 import com.vividsolutions.jts.algorithm.InteriorPointArea;
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.index.strtree.STRtree;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public final class IsInsideAreaByCodeIoxPlugin extends BaseInterlisFunction {
-    private static final Map<InsideAreaKey, Value> OBJECTS_CACHE = new HashMap<>();
-    private static GeometryFactory factory = new GeometryFactory();
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 1000;
+    private static final long DEFAULT_CACHE_MAX_WEIGHT = 1_000_000;
+    private static final Map<Validator, ResultCache<ObjectSetFingerprint, Value>> RESULT_CACHES = new WeakHashMap<>();
+    private static final Map<Validator, GeometryStore> GEOMETRY_STORES = new WeakHashMap<>();
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+    private static final int DEFAULT_SPILL_BATCH_SIZE = 1000;
+    // Batch size of the per-level accumulation without INCREMENTAL_BATCH_SIZE, levels up to this size are unioned at once.
+    private static final int DEFAULT_UNION_BATCH_SIZE = 1000;
+    private static final double FALLBACK_BUFFER_DISTANCE = 0.01;
+    // Margin around an uncovered polygon for the outer polygons passed to the fallback, larger than the neighbourhoods it searches.
+    private static final double FALLBACK_OUTER_MARGIN = FALLBACK_BUFFER_DISTANCE * 100;
+    // Settings which select how the levels are built or checked and can thereby change the result or the log events,
+    // e.g. where union and difference node the rings. ARC_TOLERANCE, FIXED_PRECISION and REMOVE_REDUNDANT_VERTICES are part of
+    // the SurfaceConverter options. SHARE_GEOMETRIES decides whether conversion warnings are logged again for every constraint.
+    // The other settings are neutral: PARALLEL and PARALLELISM give the same events in the same order, PACKED_COORDINATES stores the same
+    // double coordinates, SPILL_DIRECTORY, the CACHE_* settings, RESULT_CACHE_DIRECTORY and METRICS do not affect the evaluation.
+    private static final String[] RESULT_SETTINGS = {FunctionSettings.TILE_SIZE, FunctionSettings.LOCAL_COVERAGE, FunctionSettings.FAIL_FAST,
+            FunctionSettings.INCREMENTAL_BATCH_SIZE, FunctionSettings.SPILL_MEMORY_BUDGET, FunctionSettings.SHARE_GEOMETRIES};
+
+    private boolean isResultCacheWarningLogged;
 
     @Override
     public String getQualifiedIliName() {
@@ -45,156 +77,714 @@ public final class IsInsideAreaByCodeIoxPlugin extends BaseInterlisFunction {
             return new Value(true);
         }
 
-        List<String> objectIds = objects.stream().map(IomObject::getobjectoid).collect(Collectors.toList());
-        String geometryAttribute = argGeometryPath.getValue();
-        String codeAttribute = argCodePath.getValue();
+        Object transferFile = td.getActualRuntimeParameter(RuntimeParameters.MINIMAL_RUNTIME_SYSTEM01_CURRENT_TRANSFERFILE);
+        ObjectSetFingerprint.Builder objectSetBuilder = new ObjectSetFingerprint.Builder().add(String.valueOf(transferFile));
+        for (IomObject object : objects) {
+            objectSetBuilder.add(object.getobjectoid());
+        }
 
-        InsideAreaKey key = new InsideAreaKey(objectIds, geometryAttribute, codeAttribute);
-        return OBJECTS_CACHE.computeIfAbsent(key, k -> {
-            Viewable contextClass = EvaluationHelper.getContextClass(td, contextObject, argObjects);
+        ObjectSetFingerprint objectSet = objectSetBuilder.build();
+        ObjectSetFingerprint key = new ObjectSetFingerprint.Builder()
+                .add(argGeometryPath.getValue())
+                .add(argCodePath.getValue())
+                .add(objectSet)
+                .build();
+        AtomicBoolean isCacheMiss = new AtomicBoolean();
+        Value result = getResultCache().computeIfAbsent(transferFile, key, k -> {
+            isCacheMiss.set(true);
+            recordMetric(usageScope, "objects", objects.size());
+
+            Viewable contextClass = EvaluationHelper.getContextClass(modelCache, contextObject, argObjects);
             if (contextClass == null) {
                 throw new IllegalStateException("unknown class in " + usageScope);
             }
 
-            PathEl[] geometryPath = EvaluationHelper.getAttributePathEl(validator, contextClass, argGeometryPath);
-            PathEl[] codePath = EvaluationHelper.getAttributePathEl(validator, contextClass, argCodePath);
-
-            return isInsideArea(usageScope, objects, geometryPath, codePath);
+            ConstraintPlan plan = modelCache.getConstraintPlan(contextClass, argGeometryPath.getValue(), argCodePath.getValue(), () -> {
+                PathEl[] geometryPath = EvaluationHelper.getAttributePathEl(modelCache, validator, contextClass, argGeometryPath);
+                PathEl[] codePath = EvaluationHelper.getAttributePathEl(modelCache, validator, contextClass, argCodePath);
+                return new ConstraintPlan(geometryPath, codePath, createSurfaceConverter(geometryPath));
+            });
+
+            Map<String, Geometry> sharedGeometries = getSharedGeometries(objectSet, argGeometryPath.getValue());
+            String resultCacheDirectory = FunctionSettings.getString(settings, FunctionSettings.RESULT_CACHE_DIRECTORY, null);
+            String buildId = PersistentResultCache.getBuildId();
+            if (resultCacheDirectory != null && buildId == null) {
+                warnResultCacheDisabled(usageScope);
+            } else if (resultCacheDirectory != null) {
+                PersistentResultCache persistentCache = new PersistentResultCache(Paths.get(resultCacheDirectory), buildId);
+                String contentKey = getContentKey(plan, argGeometryPath.getValue(), argCodePath.getValue(), objects);
+                return isInsideAreaCached(usageScope, plan, objects, sharedGeometries, persistentCache, contentKey);
+            }
+            return isInsideArea(logger, usageScope, plan, objects, sharedGeometries);
         });
+
+        recordMetric(usageScope, isCacheMiss.get() ? "cacheMisses" : "cacheHits", 1);
+        return result;
     }
 
-    private Value isInsideArea(String usageScope, Collection<IomObject> objects, PathEl[] geometryPath, PathEl[] codePath) {
-        Map<ValueKey, Geometry> geometriesByCodeValue = objects.stream()
-                .collect(Collectors.toMap(
-                        o -> getCodeValue(o, codePath),
-                        o -> getGeometryValue(o, geometryPath),
-                        Geometry::union
-                ));
+    /**
+     * Remove all cached results and shared geometries of the functions running in {@code validator}.
+     */
+    public static void invalidateCache(Validator validator) {
+        synchronized (RESULT_CACHES) {
+            ResultCache<ObjectSetFingerprint, Value> cache = RESULT_CACHES.remove(validator);
+            if (cache != null) {
+                cache.invalidate();
+            }
+        }
+        synchronized (GEOMETRY_STORES) {
+            GEOMETRY_STORES.remove(validator);
+        }
+    }
 
-        for (Map.Entry<ValueKey, Geometry> entry : geometriesByCodeValue.entrySet()) {
-            entry.getValue().setUserData(entry.getKey().getStringValue());
+    /**
+     * Get the converted geometries of the attribute {@code geometryPath} of {@code objectSet}, shared by all constraints on the same objects.
+     * The store of the previous object set is released when another object set is evaluated.
+     *
+     * @return the geometries by object id or {@code null} if {@link FunctionSettings#SHARE_GEOMETRIES} is disabled.
+     */
+    private Map<String, Geometry> getSharedGeometries(ObjectSetFingerprint objectSet, String geometryPath) {
+        if (!FunctionSettings.getBoolean(settings, FunctionSettings.SHARE_GEOMETRIES, true)
+                || FunctionSettings.getInt(settings, FunctionSettings.INCREMENTAL_BATCH_SIZE, 0) > 0
+                || FunctionSettings.getDouble(settings, FunctionSettings.SPILL_MEMORY_BUDGET, 0) > 0) {
+            return null;
         }
 
-        List<Geometry> sortedGeometries;
-        ValueKey firstKey = geometriesByCodeValue.keySet().iterator().next();
-        Type keyType = firstKey.getType();
+        synchronized (GEOMETRY_STORES) {
+            GeometryStore store = GEOMETRY_STORES.get(validator);
+            if (store == null || !store.getObjectSet().equals(objectSet)) {
+                store = new GeometryStore(objectSet);
+                GEOMETRY_STORES.put(validator, store);
+            }
+            return store.getGeometries(geometryPath);
+        }
+    }
 
-        if (keyType instanceof EnumerationType) {
-            sortedGeometries = prepareGeometries(geometriesByCodeValue, this::extractCodeIntKey);
-        } else if (keyType instanceof NumericType) {
-            sortedGeometries = sortByNumericValues(geometriesByCodeValue);
-        } else {
-            logger.addEvent(logger.logErrorMsg("{0}: Unsupported type {1} for {2}.", usageScope, keyType.toString(), getQualifiedIliName()));
+    /**
+     * Get the result of {@link #isInsideArea} from {@code persistentCache} and replay its log events,
+     * or compute it and store it with the log events emitted meanwhile.
+     */
+    private Value isInsideAreaCached(String usageScope, ConstraintPlan plan, Collection<IomObject> objects, Map<String, Geometry> sharedGeometries,
+                                     PersistentResultCache persistentCache, String contentKey) {
+        PersistentResultCache.Entry entry = persistentCache.get(contentKey);
+        if (entry != null) {
+            recordMetric(usageScope, "persistentCacheHits", 1);
+            entry.replay(logger);
+            return new Value(entry.getResult());
+        }
+        recordMetric(usageScope, "persistentCacheMisses", 1);
+
+        // Collect the events of the evaluation to store them, they are emitted as soon as it is done.
+        LogEventBuffer events = new LogEventBuffer();
+        Value result = isInsideArea(createLogger(events), usageScope, plan, objects, sharedGeometries);
+        events.replay(logger);
+
+        if (!result.skipEvaluation()) {
+            try {
+                persistentCache.put(contentKey, result.isTrue(), events.getEvents());
+            } catch (IOException e) {
+                logger.addEvent(logger.logWarningMsg("{0}: Failed to write the result cache of {1}: {2}", usageScope, getQualifiedIliName(), e.getLocalizedMessage()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Warn once that {@link FunctionSettings#RESULT_CACHE_DIRECTORY} is ignored, because the plugin has no build id
+     * which tells results of different builds apart.
+     */
+    private void warnResultCacheDisabled(String usageScope) {
+        if (!isResultCacheWarningLogged) {
+            isResultCacheWarningLogged = true;
+            logger.addEvent(logger.logWarningMsg("{0}: The result cache of {1} is disabled, because the plugin has no build id.", usageScope, getQualifiedIliName()));
+        }
+    }
+
+    /**
+     * Get the key of the persistent result cache: a SHA-256 digest of the code and geometry of all {@code objects} in their order,
+     * the attribute paths, the conversion options, the settings in {@link #RESULT_SETTINGS} and the build id of the plugin.
+     * The ids of objects without code are part of the key, because the cached errors name them.
+     * The ids of all other objects are not, because they do not affect the result or the log events.
+     */
+    private String getContentKey(ConstraintPlan plan, String geometryPath, String codePath, Collection<IomObject> objects) {
+        ContentDigest digest = new ContentDigest()
+                .add(getQualifiedIliName())
+                .add(PersistentResultCache.getBuildId())
+                .add(geometryPath)
+                .add(codePath)
+                .add(plan.getCodeKind().name())
+                .add(plan.getSurfaceConverter().toString());
+        for (String setting : RESULT_SETTINGS) {
+            digest.add(FunctionSettings.getString(settings, setting, null));
+        }
+
+        for (IomObject object : objects) {
+            String code = plan.getCode(validator, object);
+            digest.add(code);
+            if (code == null) {
+                digest.add(object.getobjectoid());
+            }
+            Collection<IomObject> surfaces = EvaluationHelper.evaluateAttributes(validator, object, plan.getGeometryPath());
+            digest.add(String.valueOf(surfaces.size()));
+            for (IomObject surface : surfaces) {
+                digest.add(surface);
+            }
+        }
+        return digest.toHex();
+    }
+
+    private ResultCache<ObjectSetFingerprint, Value> getResultCache() {
+        synchronized (RESULT_CACHES) {
+            return RESULT_CACHES.computeIfAbsent(validator, v -> new ResultCache<>(
+                    FunctionSettings.getInt(settings, FunctionSettings.CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES),
+                    FunctionSettings.getLong(settings, FunctionSettings.CACHE_MAX_WEIGHT, DEFAULT_CACHE_MAX_WEIGHT),
+                    ObjectSetFingerprint::getElementCount));
+        }
+    }
+
+    /**
+     * Check that the geometries of each code level of {@code objects} are inside the next level.
+     * All log events of the evaluation go to {@code log}, the shared {@link #logger} is not used.
+     */
+    private Value isInsideArea(LogEventFactory log, String usageScope, ConstraintPlan plan, Collection<IomObject> objects, Map<String, Geometry> sharedGeometries) {
+        if (plan.getCodeKind() == ConstraintPlan.CodeKind.UNSUPPORTED) {
+            log.addEvent(log.logErrorMsg("{0}: Unsupported type {1} for {2}.", usageScope, String.valueOf(plan.getCodeType()), getQualifiedIliName()));
             return Value.createSkipEvaluation();
         }
 
-        boolean result = true;
-        for (int i = 0; i < sortedGeometries.size() - 1; i++) {
+        CodeSlots codeSlots = new CodeSlots(plan);
+        long memoryBudget = (long) (FunctionSettings.getDouble(settings, FunctionSettings.SPILL_MEMORY_BUDGET, 0) * BYTES_PER_MEGABYTE);
+        LevelSpill spill = memoryBudget > 0 ? new LevelSpill(memoryBudget, getSpillDirectory(), plan.getSurfaceConverter().getFactory()) : null;
+        try {
+            List<Geometry> sortedGeometries;
+            if (spill != null) {
+                sortedGeometries = spillGeometriesByCode(log, usageScope, plan, objects, codeSlots, spill);
+            } else if (FunctionSettings.getBoolean(settings, FunctionSettings.LOCAL_COVERAGE, false)) {
+                Map<ValueKey, List<Geometry>> geometriesByCodeValue = convertGeometriesByCode(log, usageScope, plan, objects, codeSlots, sharedGeometries);
+                boolean hasAllCodes = logObjectsWithoutCode(log, codeSlots);
+                return new Value(checkLevelsLocally(log, usageScope, plan, sortLevels(plan, geometriesByCodeValue.keySet()), geometriesByCodeValue) && hasAllCodes);
+            } else {
+                Map<ValueKey, Geometry> geometriesByCodeValue = unionGeometriesByCode(log, usageScope, plan, objects, codeSlots, sharedGeometries);
+                sortedGeometries = sortLevels(plan, geometriesByCodeValue.keySet())
+                        .stream()
+                        .map(levels -> mergeLevels(levels, geometriesByCodeValue::get))
+                        .collect(Collectors.toList());
+            }
+            boolean hasAllCodes = logObjectsWithoutCode(log, codeSlots);
+            return new Value(checkLevels(log, usageScope, sortedGeometries) && hasAllCodes);
+        } catch (IOException | UncheckedIOException e) {
+            log.addEvent(log.logErrorMsg("{0}: Failed to spill geometries of {1} to disk: {2}", usageScope, getQualifiedIliName(), e.getLocalizedMessage()));
+            return Value.createSkipEvaluation();
+        } finally {
+            if (spill != null) {
+                spill.close();
+            }
+        }
+    }
+
+    /**
+     * Log an error for each object without code, it cannot be assigned to a level.
+     * Such objects used to be skipped silently, which hid an incomplete dataset behind a passing constraint.
+     *
+     * @return {@code true} if all objects have a code.
+     */
+    private boolean logObjectsWithoutCode(LogEventFactory log, CodeSlots codeSlots) {
+        for (String oid : codeSlots.getObjectsWithoutCode()) {
+            log.addEvent(log.logErrorMsg("IsInsideAreaByCode found object '{0}' without code", oid));
+        }
+        return codeSlots.getObjectsWithoutCode().isEmpty();
+    }
+
+    /**
+     * Check that each level in {@code sortedGeometries} is covered by the next one.
+     */
+    private boolean checkLevels(LogEventFactory log, String usageScope, List<Geometry> sortedGeometries) {
+        recordMetric(usageScope, "levels", sortedGeometries.size());
+
+        if (FunctionSettings.getBoolean(settings, FunctionSettings.FAIL_FAST, false)) {
+            return isInsideAreaFailFast(log, usageScope, sortedGeometries);
+        }
+
+        double tileSize = FunctionSettings.getDouble(settings, FunctionSettings.TILE_SIZE, 0);
+        int parallelism = FunctionSettings.getParallelism(settings);
+
+        // Lazily loaded levels are compared one after another, so only two of them are loaded at a time.
+        int pairParallelism = sortedGeometries instanceof LazyLevelList ? 1 : parallelism;
+        int tileParallelism = isParallelPairs(pairParallelism, sortedGeometries.size()) ? 1 : parallelism;
+
+        return checkPairs(log, pairParallelism, sortedGeometries.size() - 1, false, (i, pairLog) -> {
             Geometry current = sortedGeometries.get(i);
             Geometry next = sortedGeometries.get(i + 1);
 
-            if (!next.covers(current)) {
-                Geometry offendingGeometry = current.difference(next);
-                if (offendingGeometry.isEmpty()) {
-                    // Buffer current geometry to get a nonempty geometry.
-                    Geometry bufferedCurrent = current.buffer(0.01);
-                    offendingGeometry = bufferedCurrent.difference(next);
-                    if (offendingGeometry.isEmpty()) {
-                        logger.addEvent(logger.logErrorMsg(
-                                "IsInsideAreaByCode found a topological error between code '{0}' and '{1}'",
-                                current.getUserData().toString(),
-                                next.getUserData().toString()));
-                    } else {
-                        Geometry envelope = offendingGeometry.getEnvelope();
-                        String envelopeWkt = envelope.toText();
-                        Point errorPoint = envelope.getCentroid();
-
-                        logger.addEvent(logger.logErrorMsg(
-                                "IsInsideAreaByCode found a topological error (probably missing support point) between code '{0}' and '{1}'. The offending geometry is inside the envelope: {2}",
-                                errorPoint.getX(),
-                                errorPoint.getY(),
-                                null,
-                                current.getUserData().toString(),
-                                next.getUserData().toString(),
-                                envelopeWkt));
+            long start = System.nanoTime();
+            CoverageResult coverage = tileSize > 0
+                    ? TilingHelper.checkCoverage(next, current, tileSize, tileParallelism, vertices -> recordMetric(usageScope, "tileVertices", vertices))
+                    : CoverageHelper.checkCoverage(next, current);
+            recordElapsedTime(usageScope, "coversTime", start);
+            if (coverage.isCovered()) {
+                return true;
+            }
+
+            logCoverageError(pairLog, usageScope, current.getUserData().toString(), next.getUserData().toString(), () -> next, coverage);
+            return false;
+        });
+    }
+
+    /**
+     * Run {@code check} for the {@code pairCount} pairs of adjacent levels. The pairs are checked in parallel if {@code parallelism}
+     * is greater than 1 and {@code stopAtFirst} is not set. The log events of each pair are buffered and emitted in level order,
+     * so the log is the same as if the pairs were checked one after another.
+     *
+     * @param check gets the index of the inner level and the logger for the pair, returns whether the pair is covered.
+     * @param stopAtFirst whether to stop at the first pair which is not covered.
+     */
+    private boolean checkPairs(LogEventFactory log, int parallelism, int pairCount, boolean stopAtFirst, BiFunction<Integer, LogEventFactory, Boolean> check) {
+        if (stopAtFirst || !isParallelPairs(parallelism, pairCount + 1)) {
+            boolean result = true;
+            for (int i = 0; i < pairCount; i++) {
+                if (!check.apply(i, log)) {
+                    result = false;
+                    if (stopAtFirst) {
+                        break;
                     }
-                } else {
-                    Coordinate errorPoint = new InteriorPointArea(offendingGeometry).getInteriorPoint();
-                    String errorPointWkt = factory.createPoint(errorPoint).toText();
-
-                    logger.addEvent(logger.logErrorMsg(
-                            "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code '{0}' and '{1}'. The offending geometry is near: {2}",
-                            errorPoint.x,
-                            errorPoint.y,
-                            null,
-                            current.getUserData().toString(),
-                            next.getUserData().toString(),
-                            errorPointWkt));
                 }
+            }
+            return result;
+        }
+
+        List<LogEventBuffer> logBuffers = Stream.generate(LogEventBuffer::new).limit(pairCount).collect(Collectors.toList());
+        List<Integer> pairs = IntStream.range(0, pairCount).boxed().collect(Collectors.toList());
+        List<Boolean> results = ParallelHelper.map(parallelism, pairs, i -> check.apply(i, createLogger(logBuffers.get(i))));
+        logBuffers.forEach(buffer -> buffer.replay(log));
+        return !results.contains(false);
+    }
+
+    /**
+     * Whether the pairs of {@code levelCount} levels are checked in parallel. A worker blocked on a nested {@link ParallelHelper#map}
+     * makes the pool add compensating threads, so the coverage check of a single pair then runs sequentially to stay within {@code parallelism} threads.
+     */
+    private static boolean isParallelPairs(int parallelism, int levelCount) {
+        return parallelism > 1 && levelCount > 2;
+    }
 
-                result = false;
+    /**
+     * Check that the polygons of each level in {@code sortedLevels} are covered by the polygons of the next level,
+     * without unioning the levels. See {@link LocalCoverageHelper#checkCoverage(STRtree, List, GeometryFactory, int, boolean)}.
+     */
+    private boolean checkLevelsLocally(LogEventFactory log, String usageScope, ConstraintPlan plan, List<List<ValueKey>> sortedLevels, Map<ValueKey, List<Geometry>> geometriesByCodeValue) {
+        recordMetric(usageScope, "levels", sortedLevels.size());
+
+        boolean failFast = FunctionSettings.getBoolean(settings, FunctionSettings.FAIL_FAST, false);
+        int parallelism = FunctionSettings.getParallelism(settings);
+        int polygonParallelism = !failFast && isParallelPairs(parallelism, sortedLevels.size()) ? 1 : parallelism;
+        GeometryFactory factory = plan.getSurfaceConverter().getFactory();
+
+        return checkPairs(log, parallelism, sortedLevels.size() - 1, failFast, (i, pairLog) -> {
+            List<ValueKey> currentKeys = sortedLevels.get(i);
+            List<ValueKey> nextKeys = sortedLevels.get(i + 1);
+            String currentCode = currentKeys.stream().map(ValueKey::getStringValue).collect(Collectors.joining(", "));
+            String nextCode = nextKeys.stream().map(ValueKey::getStringValue).collect(Collectors.joining(", "));
+
+            long start = System.nanoTime();
+            STRtree nextIndex = LocalCoverageHelper.createIndex(getLevelGeometries(nextKeys, geometriesByCodeValue));
+            CoverageResult coverage = LocalCoverageHelper.checkCoverage(nextIndex, getLevelGeometries(currentKeys, geometriesByCodeValue), factory, polygonParallelism, failFast);
+            recordElapsedTime(usageScope, "coversTime", start);
+            if (coverage.isCovered()) {
+                return true;
             }
+
+            if (failFast) {
+                pairLog.addEvent(pairLog.logErrorMsg("IsInsideAreaByCode found a topological error between code '{0}' and '{1}'", currentCode, nextCode));
+                return false;
+            }
+
+            logCoverageError(pairLog, usageScope, currentCode, nextCode, () -> {
+                Envelope extent = new Envelope(coverage.getUncovered().getEnvelopeInternal());
+                extent.expandBy(FALLBACK_OUTER_MARGIN);
+                return LocalCoverageHelper.unionCandidates(nextIndex, extent, factory);
+            }, coverage);
+            return false;
+        });
+    }
+
+    private static List<Geometry> getLevelGeometries(List<ValueKey> keys, Map<ValueKey, List<Geometry>> geometriesByCodeValue) {
+        if (keys.size() == 1) {
+            return geometriesByCodeValue.get(keys.get(0));
         }
+        return keys.stream().flatMap(key -> geometriesByCodeValue.get(key).stream()).collect(Collectors.toList());
+    }
 
-        return new Value(result);
+    /**
+     * Check the level pairs until the first one is not covered, without computing the offending geometry.
+     */
+    private boolean isInsideAreaFailFast(LogEventFactory log, String usageScope, List<Geometry> sortedGeometries) {
+        for (int i = 0; i < sortedGeometries.size() - 1; i++) {
+            Geometry current = sortedGeometries.get(i);
+            Geometry next = sortedGeometries.get(i + 1);
+
+            long start = System.nanoTime();
+            boolean isCovered = CoverageHelper.covers(next, current);
+            recordElapsedTime(usageScope, "coversTime", start);
+            if (!isCovered) {
+                log.addEvent(log.logErrorMsg(
+                        "IsInsideAreaByCode found a topological error between code '{0}' and '{1}'",
+                        current.getUserData().toString(),
+                        next.getUserData().toString()));
+                return false;
+            }
+        }
+        return true;
     }
 
-    private List<Geometry> prepareGeometries(Map<ValueKey, Geometry> map, Function<ValueKey, Integer> keySortOrder) {
-        Map<Integer, Geometry> combinedBySortOrderKey = map.entrySet()
-                .stream()
-                .collect(Collectors.toMap(
-                        e -> keySortOrder.apply(e.getKey()),
-                        Map.Entry::getValue,
-                        (a, b) -> {
-                            Geometry geometry = a.union(b);
-                            geometry.setUserData(a.getUserData() + ", " + b.getUserData());
-                            return geometry;
-                        }
-                ));
-
-        return combinedBySortOrderKey.entrySet()
-                .stream()
-                .sorted(Comparator.comparingInt(Map.Entry::getKey))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toList());
+    /**
+     * Log the error for a level pair which is not covered.
+     *
+     * @param outer supplies the polygons of the next level around the uncovered geometry, only used if the offending geometry is empty.
+     */
+    private void logCoverageError(LogEventFactory log, String usageScope, String currentCode, String nextCode, Supplier<Geometry> outer, CoverageResult coverage) {
+        Geometry offendingGeometry = coverage.getOffending();
+        if (offendingGeometry.isEmpty()) {
+            recordMetric(usageScope, "fallbackBuffers", 1);
+
+            // Buffer uncovered geometry to get a nonempty geometry.
+            offendingGeometry = CoverageHelper.locateOffendingArea(outer.get(), coverage.getUncovered(), FALLBACK_BUFFER_DISTANCE);
+            if (offendingGeometry.isEmpty()) {
+                log.addEvent(log.logErrorMsg(
+                        "IsInsideAreaByCode found a topological error between code '{0}' and '{1}'",
+                        currentCode,
+                        nextCode));
+            } else {
+                Geometry envelope = offendingGeometry.getEnvelope();
+                String envelopeWkt = envelope.toText();
+                Point errorPoint = envelope.getCentroid();
+
+                log.addEvent(log.logErrorMsg(
+                        "IsInsideAreaByCode found a topological error (probably missing support point) between code '{0}' and '{1}'. The offending geometry is inside the envelope: {2}",
+                        errorPoint.getX(),
+                        errorPoint.getY(),
+                        null,
+                        currentCode,
+                        nextCode,
+                        envelopeWkt));
+            }
+        } else {
+            Coordinate errorPoint = new InteriorPointArea(offendingGeometry).getInteriorPoint();
+            String errorPointWkt = FACTORY.createPoint(errorPoint).toText();
+
+            log.addEvent(log.logErrorMsg(
+                    "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code '{0}' and '{1}'. The offending geometry is near: {2}",
+                    errorPoint.x,
+                    errorPoint.y,
+                    null,
+                    currentCode,
+                    nextCode,
+                    errorPointWkt));
+        }
     }
 
-    private int extractCodeIntKey(ValueKey key) {
-        try {
-            return Integer.parseInt(key.getStringValue().substring(key.getStringValue().lastIndexOf("_") + 1));
-        } catch (NumberFormatException e) {
-            return Integer.MAX_VALUE;
+    /**
+     * Convert the geometries of all {@code objects} and union them per code value.
+     * Sequentially, the converted geometries are folded into a {@link LevelAccumulator} per code value right away.
+     * If parallel processing is enabled without {@link FunctionSettings#INCREMENTAL_BATCH_SIZE}, the geometries of all levels are
+     * converted first and the union runs on a fork/join pool.
+     */
+    private Map<ValueKey, Geometry> unionGeometriesByCode(LogEventFactory log, String usageScope, ConstraintPlan plan, Collection<IomObject> objects, CodeSlots codeSlots,
+                                                          Map<String, Geometry> sharedGeometries) {
+        int parallelism = FunctionSettings.getParallelism(settings);
+        int batchSize = FunctionSettings.getInt(settings, FunctionSettings.INCREMENTAL_BATCH_SIZE, 0);
+        if (batchSize > 0 || parallelism <= 1) {
+            return accumulateGeometriesByCode(log, usageScope, plan, objects, codeSlots, sharedGeometries, batchSize > 0 ? batchSize : DEFAULT_UNION_BATCH_SIZE);
         }
+
+        Map<ValueKey, List<Geometry>> geometriesByCodeValue = convertGeometriesByCodeParallel(log, usageScope, plan, objects, codeSlots, sharedGeometries, parallelism);
+        List<Map.Entry<ValueKey, List<Geometry>>> levels = new ArrayList<>(geometriesByCodeValue.entrySet());
+
+        long start = System.nanoTime();
+        List<Geometry> unions = ParallelHelper.map(parallelism, levels, level -> GeometryHelper.union(level.getValue()));
+        recordElapsedTime(usageScope, "unionTime", start);
+
+        // Inserted in the iteration order of geometriesByCodeValue, so both maps iterate the levels in the same order.
+        Map<ValueKey, Geometry> unionsByCodeValue = new HashMap<>();
+        for (int i = 0; i < levels.size(); i++) {
+            Geometry geometry = unions.get(i);
+            geometry.setUserData(levels.get(i).getKey().getStringValue());
+            unionsByCodeValue.put(levels.get(i).getKey(), geometry);
+        }
+        return unionsByCodeValue;
+    }
+
+    /**
+     * Convert the geometries of all {@code objects} and group them per code value.
+     * If parallel processing is enabled, the conversion runs on a fork/join pool.
+     * Log events of the conversion are emitted in the order of {@code objects} in any case.
+     * Geometries found in {@code sharedGeometries} are not converted again, new ones are added to it.
+     */
+    private Map<ValueKey, List<Geometry>> convertGeometriesByCode(LogEventFactory log, String usageScope, ConstraintPlan plan, Collection<IomObject> objects, CodeSlots codeSlots,
+                                                                  Map<String, Geometry> sharedGeometries) {
+        int parallelism = FunctionSettings.getParallelism(settings);
+        if (parallelism > 1) {
+            return convertGeometriesByCodeParallel(log, usageScope, plan, objects, codeSlots, sharedGeometries, parallelism);
+        }
+
+        List<List<Geometry>> geometriesBySlot = new ArrayList<>();
+        long start = System.nanoTime();
+        convertGeometries(log, usageScope, plan, objects, codeSlots, sharedGeometries, (geometry, slot) -> {
+            if (slot == geometriesBySlot.size()) {
+                geometriesBySlot.add(new ArrayList<>());
+            }
+            geometriesBySlot.get(slot).add(geometry);
+        });
+        recordElapsedTime(usageScope, "conversionTime", start);
+
+        return groupByCodeValue(codeSlots.getCodes(), geometriesBySlot);
+    }
+
+    /**
+     * Convert the geometries of all {@code objects} in a single pass and hand each one to {@code consumer} together with the slot of its code,
+     * no surfaces or per-object arrays are kept. Geometries found in {@code sharedGeometries} are not converted again, new ones are added to it.
+     * Objects without code are converted as well, so their conversion problems are reported, but not passed to {@code consumer}.
+     */
+    private void convertGeometries(LogEventFactory log, String usageScope, ConstraintPlan plan, Collection<IomObject> objects, CodeSlots codeSlots,
+                                   Map<String, Geometry> sharedGeometries, ObjIntConsumer<Geometry> consumer) {
+        SurfaceConverter converter = plan.getSurfaceConverter();
+        long sharedCount = 0;
+        long vertices = 0;
+
+        for (IomObject object : objects) {
+            int slot = codeSlots.getSlot(plan.getCode(validator, object), object);
+            String oid = object.getobjectoid();
+            Geometry geometry = sharedGeometries == null || oid == null ? null : sharedGeometries.get(oid);
+            if (geometry != null) {
+                sharedCount++;
+            } else {
+                geometry = getGeometryValue(EvaluationHelper.evaluateAttributes(validator, object, plan.getGeometryPath()), converter, log);
+                vertices += geometry.getNumPoints();
+                if (sharedGeometries != null && oid != null) {
+                    sharedGeometries.put(oid, geometry);
+                }
+            }
+
+            if (slot >= 0) {
+                consumer.accept(geometry, slot);
+            }
+        }
+        recordMetric(usageScope, "sharedGeometries", sharedCount);
+        recordMetric(usageScope, "vertices", vertices);
+    }
+
+    /**
+     * Convert the geometries of all {@code objects} on a fork/join pool and group them per code value, see {@link #convertGeometriesByCode}.
+     * The surfaces to convert are collected first to convert them in parallel.
+     */
+    private Map<ValueKey, List<Geometry>> convertGeometriesByCodeParallel(LogEventFactory log, String usageScope, ConstraintPlan plan, Collection<IomObject> objects,
+                                                                          CodeSlots codeSlots, Map<String, Geometry> sharedGeometries, int parallelism) {
+        SurfaceConverter converter = plan.getSurfaceConverter();
+
+        int[] slots = new int[objects.size()];
+        String[] oids = new String[objects.size()];
+        Geometry[] geometries = new Geometry[objects.size()];
+        List<Integer> unconverted = new ArrayList<>();
+        List<Collection<IomObject>> surfaces = new ArrayList<>();
+        int index = 0;
+        for (IomObject object : objects) {
+            slots[index] = codeSlots.getSlot(plan.getCode(validator, object), object);
+            oids[index] = object.getobjectoid();
+            geometries[index] = sharedGeometries == null || oids[index] == null ? null : sharedGeometries.get(oids[index]);
+            if (geometries[index] == null) {
+                unconverted.add(index);
+                surfaces.add(EvaluationHelper.evaluateAttributes(validator, object, plan.getGeometryPath()));
+            }
+            index++;
+        }
+        recordMetric(usageScope, "sharedGeometries", objects.size() - unconverted.size());
+
+        long start = System.nanoTime();
+        List<LogEventBuffer> logBuffers = Stream.generate(LogEventBuffer::new).limit(surfaces.size()).collect(Collectors.toList());
+        List<Integer> indices = IntStream.range(0, surfaces.size()).boxed().collect(Collectors.toList());
+        List<Geometry> converted = ParallelHelper.map(parallelism, indices, i -> getGeometryValue(surfaces.get(i), converter, createLogger(logBuffers.get(i))));
+        logBuffers.forEach(buffer -> buffer.replay(log));
+        for (int i = 0; i < converted.size(); i++) {
+            int objectIndex = unconverted.get(i);
+            geometries[objectIndex] = converted.get(i);
+            if (sharedGeometries != null && oids[objectIndex] != null) {
+                sharedGeometries.put(oids[objectIndex], converted.get(i));
+            }
+        }
+        recordElapsedTime(usageScope, "conversionTime", start);
+        if (isMetricsEnabled()) {
+            recordMetric(usageScope, "vertices", converted.stream().mapToLong(Geometry::getNumPoints).sum());
+        }
+
+        List<List<Geometry>> geometriesBySlot = Stream.<List<Geometry>>generate(ArrayList::new).limit(codeSlots.getCodes().size()).collect(Collectors.toList());
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] >= 0) {
+                geometriesBySlot.get(slots[i]).add(geometries[i]);
+            }
+        }
+
+        return groupByCodeValue(codeSlots.getCodes(), geometriesBySlot);
     }
 
-    private int getOrderedEnumIndex(ValueKey key) {
-        List<String> enumValues = ((EnumerationType) key.getType()).getValues();
-        return enumValues.indexOf(key.getStringValue());
+    /**
+     * Map the geometries of each slot to the key of its code, inserted in slot order.
+     */
+    private static Map<ValueKey, List<Geometry>> groupByCodeValue(List<String> codes, List<List<Geometry>> geometriesBySlot) {
+        Map<ValueKey, List<Geometry>> geometriesByCodeValue = new HashMap<>();
+        for (int slot = 0; slot < codes.size(); slot++) {
+            geometriesByCodeValue.put(new ValueKey(codes.get(slot)), geometriesBySlot.get(slot));
+        }
+        return geometriesByCodeValue;
     }
 
-    private List<Geometry> sortByNumericValues(Map<ValueKey, Geometry> map) {
-        return map.entrySet()
+    /**
+     * Convert the geometries of all {@code objects} one by one and fold them into a {@link LevelAccumulator} per code value,
+     * so no list of the converted geometries of a level is built and geometries which are not shared are released
+     * as soon as they are part of a partial union.
+     */
+    private Map<ValueKey, Geometry> accumulateGeometriesByCode(LogEventFactory log, String usageScope, ConstraintPlan plan, Collection<IomObject> objects, CodeSlots codeSlots,
+                                                               Map<String, Geometry> sharedGeometries, int batchSize) {
+        List<LevelAccumulator> accumulators = new ArrayList<>();
+
+        long start = System.nanoTime();
+        convertGeometries(log, usageScope, plan, objects, codeSlots, sharedGeometries, (geometry, slot) -> {
+            if (slot == accumulators.size()) {
+                accumulators.add(new LevelAccumulator(batchSize));
+            }
+            accumulators.get(slot).add(geometry);
+        });
+
+        Map<ValueKey, Geometry> geometriesByCodeValue = new HashMap<>();
+        List<String> codes = codeSlots.getCodes();
+        for (int slot = 0; slot < codes.size(); slot++) {
+            Geometry geometry = accumulators.get(slot).getResult();
+            geometry.setUserData(codes.get(slot));
+            geometriesByCodeValue.put(new ValueKey(codes.get(slot)), geometry);
+        }
+
+        // Conversion and partial unions are interleaved, the total is recorded as union time.
+        recordElapsedTime(usageScope, "unionTime", start);
+        return geometriesByCodeValue;
+    }
+
+    /**
+     * Convert the geometries of all {@code objects} one by one into {@code spill} and union each level from there,
+     * so the converted geometries are written to disk instead of being held in memory once they exceed the memory budget.
+     *
+     * @return the sorted levels, read from {@code spill} on access.
+     */
+    private List<Geometry> spillGeometriesByCode(LogEventFactory log, String usageScope, ConstraintPlan plan, Collection<IomObject> objects, CodeSlots codeSlots,
+                                                 LevelSpill spill) throws IOException {
+        SurfaceConverter converter = plan.getSurfaceConverter();
+
+        long start = System.nanoTime();
+        for (IomObject object : objects) {
+            int slot = codeSlots.getSlot(plan.getCode(validator, object), object);
+
+            // Objects without code are converted as well, so their conversion problems are reported.
+            Collection<IomObject> surfaces = EvaluationHelper.evaluateAttributes(validator, object, plan.getGeometryPath());
+            Geometry geometry = getGeometryValue(surfaces, converter, log);
+            if (slot >= 0) {
+                spill.add(slot, geometry);
+            }
+        }
+
+        int batchSize = FunctionSettings.getInt(settings, FunctionSettings.INCREMENTAL_BATCH_SIZE, 0);
+        spill.unionLevels(batchSize > 0 ? batchSize : DEFAULT_SPILL_BATCH_SIZE);
+        recordElapsedTime(usageScope, "unionTime", start);
+        if (spill.isSpilled()) {
+            recordMetric(usageScope, "spilledEvaluations", 1);
+        }
+
+        Map<ValueKey, Integer> slotsByKey = new HashMap<>();
+        List<String> codes = codeSlots.getCodes();
+        for (int slot = 0; slot < codes.size(); slot++) {
+            slotsByKey.put(new ValueKey(codes.get(slot)), slot);
+        }
+
+        List<List<ValueKey>> sortedLevels = sortLevels(plan, slotsByKey.keySet());
+        return new LazyLevelList(sortedLevels.size(), i -> mergeLevels(sortedLevels.get(i), key -> {
+            try {
+                Geometry geometry = spill.getUnion(slotsByKey.get(key));
+                geometry.setUserData(key.getStringValue());
+                return geometry;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    private Path getSpillDirectory() {
+        String directory = FunctionSettings.getString(settings, FunctionSettings.SPILL_DIRECTORY, null);
+        return directory == null ? null : Paths.get(directory);
+    }
+
+    /**
+     * Sort the code levels. Enumeration values with the same sort rank form one level, in the iteration order of {@code keys}.
+     * The {@link ValueKey}s are created once per code, not per object, and their hash codes keep the order in which such levels are reported.
+     */
+    private List<List<ValueKey>> sortLevels(ConstraintPlan plan, Collection<ValueKey> keys) {
+        if (plan.getCodeKind() == ConstraintPlan.CodeKind.ENUMERATION) {
+            Map<Integer, List<ValueKey>> keysBySortOrder = keys
+                    .stream()
+                    .collect(Collectors.groupingBy(key -> plan.getEnumRank(key.getStringValue())));
+
+            return keysBySortOrder.entrySet()
+                    .stream()
+                    .sorted(Comparator.comparingInt(Map.Entry::getKey))
+                    .map(Map.Entry::getValue)
+                    .collect(Collectors.toList());
+        }
+
+        return keys
                 .stream()
-                .sorted(Comparator.comparingDouble(entry -> entry.getKey().getNumericValue()))
-                .map(Map.Entry::getValue)
+                .sorted(Comparator.comparingDouble(key -> Double.parseDouble(key.getStringValue())))
+                .map(Collections::singletonList)
                 .collect(Collectors.toList());
     }
 
-    private ValueKey getCodeValue(IomObject object, PathEl[] enumPath) {
-        Value value = validator.getValueFromObjectPath(null, object, enumPath, null);
-        return new ValueKey(value);
+    /**
+     * Get the geometry of one sorted level, the union of the geometries of all {@code keys} if there are more than one.
+     */
+    private Geometry mergeLevels(List<ValueKey> keys, Function<ValueKey, Geometry> geometries) {
+        if (keys.size() == 1) {
+            return geometries.apply(keys.get(0));
+        }
+
+        Geometry geometry = GeometryHelper.union(keys.stream().map(geometries).collect(Collectors.toList()));
+        geometry.setUserData(keys.stream().map(ValueKey::getStringValue).collect(Collectors.joining(", ")));
+        return geometry;
     }
 
-    private Geometry getGeometryValue(IomObject object, PathEl[] geometryPath) {
-        Value objects = new Value(Collections.singletonList(object));
-        Collection<IomObject> geometryObjects = EvaluationHelper.evaluateAttributes(validator, objects, geometryPath);
+    /**
+     * Create the {@link SurfaceConverter} for the surface attribute at the end of {@code geometryPath}.
+     * The arc tolerance is taken from {@link FunctionSettings#ARC_TOLERANCE} or derived from the accuracy of the control points,
+     * with {@link FunctionSettings#FIXED_PRECISION} the geometries are reduced to the precision of the control points.
+     */
+    private SurfaceConverter createSurfaceConverter(PathEl[] geometryPath) {
+        CoordType coordType = EvaluationHelper.getControlPointType(geometryPath);
+        int accuracy = EvaluationHelper.getCoordinateAccuracy(coordType);
+
+        double arcTolerance = FunctionSettings.getDouble(settings, FunctionSettings.ARC_TOLERANCE, -1);
+        if (arcTolerance < 0) {
+            arcTolerance = accuracy < 0 ? 0 : Math.pow(10, -accuracy) / 2;
+        }
 
+        PrecisionModel precisionModel = accuracy >= 0 && FunctionSettings.getBoolean(settings, FunctionSettings.FIXED_PRECISION, false)
+                ? new PrecisionModel(Math.pow(10, accuracy))
+                : null;
+
+        return new SurfaceConverter(arcTolerance, precisionModel,
+                FunctionSettings.getBoolean(settings, FunctionSettings.REMOVE_REDUNDANT_VERTICES, false),
+                FunctionSettings.getBoolean(settings, FunctionSettings.PACKED_COORDINATES, false));
+    }
+
+    private Geometry getGeometryValue(Collection<IomObject> geometryObjects, SurfaceConverter converter, LogEventFactory log) {
         List<Geometry> geometries = geometryObjects.stream()
                 .map(g -> {
                     try {
-                        return Iox2jtsext.multisurface2JTS(g, 0, new OutParam<>(), logger, 0, "warning");
+                        return converter.convert(g, log);
                     } catch (Exception e) {
-                        logger.addEvent(logger.logWarningMsg("{0}: Failed to convert surface to JTS: {1}", getQualifiedIliName(), e.getLocalizedMessage()));
+                        log.addEvent(log.logWarningMsg("{0}: Failed to convert surface to JTS: {1}", getQualifiedIliName(), e.getLocalizedMessage()));
                         return null;
                     }
                 })
@@ -204,57 +794,114 @@ public final class IsInsideAreaByCodeIoxPlugin extends BaseInterlisFunction {
         if (geometries.size() == 1) {
             return geometries.get(0);
         } else {
-            return new GeometryFactory().buildGeometry(geometries);
+            return converter.getFactory().buildGeometry(geometries);
         }
     }
 
-    private static final class ValueKey {
-        private final Value value;
+    /**
+     * Numbers the codes of the objects in order of appearance and records the objects without code.
+     * Enumeration values are numbered through a table indexed by their ordinal, other codes through a map.
+     */
+    private static final class CodeSlots {
+        private final ConstraintPlan plan;
+        private final int[] slotsByOrdinal;
+        private final Map<String, Integer> slotsByCode = new HashMap<>();
+        private final List<String> codes = new ArrayList<>();
+        private final List<String> objectsWithoutCode = new ArrayList<>();
+
+        CodeSlots(ConstraintPlan plan) {
+            this.plan = plan;
+            this.slotsByOrdinal = new int[plan.getEnumValueCount()];
+            Arrays.fill(slotsByOrdinal, -1);
+        }
 
-        ValueKey(Value value) {
-            this.value = value;
+        /**
+         * Get the number of {@code code}, adding it if it is new.
+         *
+         * @return the number of the code or {@code -1} if {@code code} is {@code null}, then {@code object} is recorded as object without code.
+         */
+        int getSlot(String code, IomObject object) {
+            if (code == null) {
+                objectsWithoutCode.add(String.valueOf(object.getobjectoid()));
+                return -1;
+            }
+
+            int ordinal = plan.getEnumOrdinal(code);
+            if (ordinal >= 0) {
+                if (slotsByOrdinal[ordinal] < 0) {
+                    slotsByOrdinal[ordinal] = addCode(code);
+                }
+                return slotsByOrdinal[ordinal];
+            }
+
+            Integer slot = slotsByCode.get(code);
+            if (slot == null) {
+                slot = addCode(code);
+                slotsByCode.put(code, slot);
+            }
+            return slot;
         }
 
-        public Type getType() {
-            return value.getType();
+        private int addCode(String code) {
+            codes.add(code);
+            return codes.size() - 1;
         }
 
-        public String getStringValue() {
-            return value.getValue();
+        /**
+         * Get the codes in order of their numbers.
+         */
+        List<String> getCodes() {
+            return codes;
         }
 
-        public double getNumericValue() {
-            return value.getNumeric();
+        List<String> getObjectsWithoutCode() {
+            return objectsWithoutCode;
         }
+    }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
+    /**
+     * Sorted levels which are loaded on access. The two most recently used levels are kept,
+     * so comparing each level with the next one loads every level once.
+     */
+    private static final class LazyLevelList extends AbstractList<Geometry> {
+        private final int size;
+        private final IntFunction<Geometry> loader;
+        private final Map<Integer, Geometry> loaded = new LinkedHashMap<Integer, Geometry>(4, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Geometry> eldest) {
+                return size() > 2;
             }
-            if (!(o instanceof ValueKey)) {
-                return false;
-            }
-            ValueKey that = (ValueKey) o;
-            return Objects.equals(getStringValue(), that.getStringValue())
-                    && Objects.equals(getType(), that.getType());
+        };
+
+        LazyLevelList(int size, IntFunction<Geometry> loader) {
+            this.size = size;
+            this.loader = loader;
         }
 
         @Override
-        public int hashCode() {
-            return Objects.hash(getStringValue());
+        public Geometry get(int index) {
+            return loaded.computeIfAbsent(index, loader::apply);
+        }
+
+        @Override
+        public int size() {
+            return size;
         }
     }
 
-    private static final class InsideAreaKey {
-        private final List<String> objectIds;
-        private final String geometryAttribute;
-        private final String codeAttribute;
+    /**
+     * Key of a code level. The hash code is kept compatible with earlier versions,
+     * because levels with the same sort rank are reported in the iteration order of a {@link HashMap}.
+     */
+    private static final class ValueKey {
+        private final String value;
+
+        ValueKey(String value) {
+            this.value = value;
+        }
 
-        InsideAreaKey(List<String> objectIds, String geometryAttribute, String codeAttribute) {
-            this.objectIds = objectIds;
-            this.geometryAttribute = geometryAttribute;
-            this.codeAttribute = codeAttribute;
+        public String getStringValue() {
+            return value;
         }
 
         @Override
@@ -262,18 +909,15 @@ public final class IsInsideAreaByCodeIoxPlugin extends BaseInterlisFunction {
             if (this == o) {
                 return true;
             }
-            if (!(o instanceof InsideAreaKey)) {
+            if (!(o instanceof ValueKey)) {
                 return false;
             }
-            InsideAreaKey that = (InsideAreaKey) o;
-            return objectIds.equals(that.objectIds)
-                    && geometryAttribute.equals(that.geometryAttribute)
-                    && codeAttribute.equals(that.codeAttribute);
+            return value.equals(((ValueKey) o).value);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(objectIds, geometryAttribute, codeAttribute);
+            return Objects.hash(value);
         }
     }
 }
@@ -0,0 +1,65 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumulates the geometries of one code level while they are converted.
+ * Every {@code batchSize} geometries are unioned into a partial union, and partial unions of the same size are
+ * merged like a binary counter. This keeps only a logarithmic number of partial unions plus one batch in memory
+ * instead of every converted geometry of the level.
+ */
+final class LevelAccumulator {
+    private final int batchSize;
+    private final List<Geometry> pending = new ArrayList<>();
+    private final List<Geometry> partialUnions = new ArrayList<>();
+
+    LevelAccumulator(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Add a converted geometry to this level.
+     */
+    void add(Geometry geometry) {
+        pending.add(geometry);
+        if (pending.size() >= batchSize) {
+            fold(GeometryHelper.union(new ArrayList<>(pending)));
+            pending.clear();
+        }
+    }
+
+    /**
+     * Get the union of all added geometries.
+     */
+    Geometry getResult() {
+        List<Geometry> remaining = new ArrayList<>(pending);
+        for (Geometry partialUnion : partialUnions) {
+            if (partialUnion != null) {
+                remaining.add(partialUnion);
+            }
+        }
+        return GeometryHelper.union(remaining);
+    }
+
+    private void fold(Geometry partialUnion) {
+        Geometry carry = partialUnion;
+        int level = 0;
+        while (level < partialUnions.size() && partialUnions.get(level) != null) {
+            List<Geometry> pair = new ArrayList<>(2);
+            pair.add(partialUnions.get(level));
+            pair.add(carry);
+            carry = GeometryHelper.union(pair);
+            partialUnions.set(level, null);
+            level++;
+        }
+
+        if (level == partialUnions.size()) {
+            partialUnions.add(carry);
+        } else {
+            partialUnions.set(level, carry);
+        }
+    }
+}
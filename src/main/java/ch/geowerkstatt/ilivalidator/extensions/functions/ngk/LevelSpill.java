@@ -0,0 +1,249 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.ehi.basics.logging.EhiLogger;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequenceFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Converted geometries of the code levels of one evaluation, kept in memory until their estimated size exceeds a memory budget.
+ * From then on every level is written to its own temporary file as a sequence of length-prefixed WKB records,
+ * the files are memory-mapped when the levels are read back. Call {@link #close()} to delete the files.
+ */
+final class LevelSpill implements AutoCloseable {
+    // Estimated heap usage of one vertex stored as Coordinate object, or as x and y in a packed array.
+    private static final long BYTES_PER_COORDINATE_OBJECT = 48;
+    private static final long BYTES_PER_PACKED_DOUBLE_VERTEX = 2 * Double.BYTES;
+    private static final long BYTES_PER_PACKED_FLOAT_VERTEX = 2 * Float.BYTES;
+    private static final int MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final long memoryBudget;
+    private final Path parentDirectory;
+    private final GeometryFactory factory;
+    private final long bytesPerVertex;
+    private final List<List<Geometry>> pendingByLevel = new ArrayList<>();
+    private final List<DataOutputStream> writers = new ArrayList<>();
+    private final List<Geometry> unions = new ArrayList<>();
+    private final WKBWriter wkbWriter = new WKBWriter();
+
+    private Path directory;
+    private long estimatedBytes;
+
+    /**
+     * Create a spill for the levels of one evaluation.
+     *
+     * @param memoryBudget the estimated size in bytes of the converted geometries above which the levels are written to disk.
+     * @param parentDirectory the directory for the temporary files, {@code null} for the default temporary directory.
+     * @param factory the factory of the geometries, used to restore them and to estimate their size.
+     */
+    LevelSpill(long memoryBudget, Path parentDirectory, GeometryFactory factory) {
+        this.memoryBudget = memoryBudget;
+        this.parentDirectory = parentDirectory;
+        this.factory = factory;
+        this.bytesPerVertex = getBytesPerVertex(factory);
+    }
+
+    /**
+     * Add the converted {@code geometry} to the {@code level}. Levels are numbered from {@code 0} without gaps.
+     */
+    void add(int level, Geometry geometry) throws IOException {
+        while (pendingByLevel.size() <= level) {
+            pendingByLevel.add(new ArrayList<>());
+        }
+
+        if (isSpilled()) {
+            write(level, geometry);
+            return;
+        }
+
+        pendingByLevel.get(level).add(geometry);
+        estimatedBytes += geometry.getNumPoints() * bytesPerVertex;
+        if (estimatedBytes > memoryBudget) {
+            spill();
+        }
+    }
+
+    /**
+     * Check whether the levels were written to disk because they exceeded the memory budget.
+     */
+    boolean isSpilled() {
+        return directory != null;
+    }
+
+    /**
+     * Union the geometries of every level. Spilled levels are read back record by record and folded with a {@link LevelAccumulator},
+     * so only one batch of a level is held in memory, and their unions are written to disk again.
+     */
+    void unionLevels(int batchSize) throws IOException {
+        closeWriters();
+        for (int level = 0; level < pendingByLevel.size(); level++) {
+            if (!isSpilled()) {
+                unions.add(GeometryHelper.union(pendingByLevel.get(level)));
+                pendingByLevel.set(level, null);
+                continue;
+            }
+
+            LevelAccumulator accumulator = new LevelAccumulator(batchSize);
+            read(getLevelFile(level), accumulator::add);
+            Geometry union = accumulator.getResult();
+            deleteFile(getLevelFile(level));
+
+            try (DataOutputStream out = openWriter(getUnionFile(level))) {
+                writeRecord(out, union);
+            }
+        }
+    }
+
+    /**
+     * Get the union of the {@code level}, read from disk if the levels are spilled. Requires {@link #unionLevels(int)}.
+     */
+    Geometry getUnion(int level) throws IOException {
+        if (!isSpilled()) {
+            return unions.get(level);
+        }
+
+        List<Geometry> records = new ArrayList<>(1);
+        read(getUnionFile(level), records::add);
+        return records.get(0);
+    }
+
+    /**
+     * Delete all temporary files.
+     */
+    @Override
+    public void close() {
+        closeWriters();
+        if (directory == null) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(LevelSpill::deleteFile);
+        } catch (IOException e) {
+            EhiLogger.logError(e);
+        }
+        deleteFile(directory);
+    }
+
+    private static long getBytesPerVertex(GeometryFactory factory) {
+        if (!(factory.getCoordinateSequenceFactory() instanceof PackedCoordinateSequenceFactory)) {
+            return BYTES_PER_COORDINATE_OBJECT;
+        }
+        PackedCoordinateSequenceFactory packedFactory = (PackedCoordinateSequenceFactory) factory.getCoordinateSequenceFactory();
+        return packedFactory.getType() == PackedCoordinateSequenceFactory.FLOAT ? BYTES_PER_PACKED_FLOAT_VERTEX : BYTES_PER_PACKED_DOUBLE_VERTEX;
+    }
+
+    private void spill() throws IOException {
+        directory = parentDirectory == null ? Files.createTempDirectory("ngk-levels") : Files.createTempDirectory(parentDirectory, "ngk-levels");
+        for (int level = 0; level < pendingByLevel.size(); level++) {
+            for (Geometry geometry : pendingByLevel.get(level)) {
+                write(level, geometry);
+            }
+            pendingByLevel.get(level).clear();
+        }
+    }
+
+    private void write(int level, Geometry geometry) throws IOException {
+        while (writers.size() <= level) {
+            writers.add(openWriter(getLevelFile(writers.size())));
+        }
+        writeRecord(writers.get(level), geometry);
+    }
+
+    private void writeRecord(DataOutputStream out, Geometry geometry) throws IOException {
+        byte[] wkb = wkbWriter.write(geometry);
+        out.writeInt(wkb.length);
+        out.write(wkb);
+    }
+
+    /**
+     * Read all records of {@code file}, mapping windows of the file into memory one after another.
+     */
+    private void read(Path file, Consumer<Geometry> consumer) throws IOException {
+        WKBReader wkbReader = new WKBReader(factory);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            MappedByteBuffer window = null;
+            long windowStart = 0;
+
+            while (position < size) {
+                if (window == null || position + Integer.BYTES > windowStart + window.limit()) {
+                    window = map(channel, position, Integer.BYTES, size);
+                    windowStart = position;
+                }
+                window.position((int) (position - windowStart));
+                int length = window.getInt();
+
+                if (position + Integer.BYTES + length > windowStart + window.limit()) {
+                    window = map(channel, position, Integer.BYTES + length, size);
+                    windowStart = position;
+                    window.position(Integer.BYTES);
+                }
+
+                byte[] wkb = new byte[length];
+                window.get(wkb);
+                position += Integer.BYTES + length;
+
+                try {
+                    consumer.accept(wkbReader.read(wkb));
+                } catch (ParseException e) {
+                    throw new IOException("Invalid geometry record in " + file, e);
+                }
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, int minimumSize, long fileSize) throws IOException {
+        long size = Math.min(fileSize - position, Math.max(minimumSize, MAP_WINDOW_SIZE));
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    private static DataOutputStream openWriter(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    }
+
+    private Path getLevelFile(int level) {
+        return directory.resolve("level-" + level + ".wkb");
+    }
+
+    private Path getUnionFile(int level) {
+        return directory.resolve("union-" + level + ".wkb");
+    }
+
+    private void closeWriters() {
+        for (DataOutputStream writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                EhiLogger.logError(e);
+            }
+        }
+        writers.clear();
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Mapped files cannot be deleted on some platforms until the mapping is garbage collected.
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.util.PolygonExtracter;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class LocalCoverageHelper {
+
+    private LocalCoverageHelper() {
+        // Utility class
+    }
+
+    /**
+     * Create an index of the polygons of {@code geometries}, e.g. all geometries of one code level.
+     * The index is built before it is returned, so it can be queried concurrently.
+     */
+    public static STRtree createIndex(List<Geometry> geometries) {
+        STRtree index = new STRtree();
+        for (Geometry geometry : geometries) {
+            for (Object polygon : PolygonExtracter.getPolygons(geometry)) {
+                Geometry component = (Geometry) polygon;
+                if (!component.isEmpty()) {
+                    index.insert(component.getEnvelopeInternal(), component);
+                }
+            }
+        }
+        index.build();
+        return index;
+    }
+
+    /**
+     * Check whether the polygons in {@code outerIndex} cover all polygons of {@code innerGeometries} without unioning either level.
+     * Each inner polygon is compared with the union of the outer polygons whose envelope intersects its envelope,
+     * so the cost depends on the local density of the polygons instead of the size of the levels.
+     * The offending geometry is the union of the uncovered parts of all inner polygons, which equals the difference of the unioned levels.
+     *
+     * @param outerIndex the outer polygons, see {@link #createIndex(List)}.
+     * @param innerGeometries the geometries to test.
+     * @param factory the factory for empty results.
+     * @param parallelism the maximum number of inner polygons checked in parallel.
+     * @param stopAtFirst whether to stop at the first uncovered polygon without computing the offending geometry.
+     */
+    public static CoverageResult checkCoverage(STRtree outerIndex, List<Geometry> innerGeometries, GeometryFactory factory, int parallelism, boolean stopAtFirst) {
+        List<Geometry> innerPolygons = new ArrayList<>();
+        for (Geometry geometry : innerGeometries) {
+            for (Object polygon : PolygonExtracter.getPolygons(geometry)) {
+                if (!((Geometry) polygon).isEmpty()) {
+                    innerPolygons.add((Geometry) polygon);
+                }
+            }
+        }
+
+        Geometry empty = factory.createGeometryCollection(new Geometry[0]);
+        if (stopAtFirst) {
+            for (Geometry polygon : innerPolygons) {
+                if (!CoverageHelper.covers(unionCandidates(outerIndex, polygon.getEnvelopeInternal(), factory), polygon)) {
+                    return CoverageResult.uncovered(polygon, empty);
+                }
+            }
+            return CoverageResult.covered();
+        }
+
+        List<Geometry> offendingParts = ParallelHelper.map(parallelism, innerPolygons, polygon -> {
+            Geometry localOuter = unionCandidates(outerIndex, polygon.getEnvelopeInternal(), factory);
+            if (CoverageHelper.covers(localOuter, polygon)) {
+                return null;
+            }
+            return polygon.difference(localOuter);
+        });
+
+        List<Geometry> uncovered = new ArrayList<>();
+        List<Geometry> offending = new ArrayList<>();
+        for (int i = 0; i < innerPolygons.size(); i++) {
+            Geometry part = offendingParts.get(i);
+            if (part != null) {
+                uncovered.add(innerPolygons.get(i));
+                if (!part.isEmpty()) {
+                    offending.add(part);
+                }
+            }
+        }
+
+        if (uncovered.isEmpty()) {
+            return CoverageResult.covered();
+        }
+        return CoverageResult.uncovered(GeometryHelper.union(uncovered), offending.isEmpty() ? empty : GeometryHelper.union(offending));
+    }
+
+    /**
+     * Get the union of the polygons in {@code index} whose envelope intersects {@code envelope}.
+     *
+     * @return the union or an empty geometry if there are no such polygons.
+     */
+    @SuppressWarnings("unchecked")
+    public static Geometry unionCandidates(STRtree index, Envelope envelope, GeometryFactory factory) {
+        List<Geometry> candidates = index.query(envelope);
+        if (candidates.isEmpty()) {
+            return factory.createGeometryCollection(new Geometry[0]);
+        }
+        return GeometryHelper.union(new ArrayList<>(candidates));
+    }
+}
@@ -0,0 +1,36 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iox.IoxLogEvent;
+import ch.interlis.iox.IoxLogging;
+import ch.interlis.iox_j.logging.LogEventFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects log events to emit them later, e.g. to keep the log order of work done in parallel deterministic.
+ */
+final class LogEventBuffer implements IoxLogging {
+    private final List<IoxLogEvent> events = new ArrayList<>();
+
+    @Override
+    public void addEvent(IoxLogEvent event) {
+        events.add(event);
+    }
+
+    /**
+     * Get the collected events in the order they were added.
+     */
+    List<IoxLogEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * Emit all collected events through {@code logger} in the order they were added.
+     */
+    void replay(LogEventFactory logger) {
+        for (IoxLogEvent event : events) {
+            logger.addEvent(event);
+        }
+    }
+}
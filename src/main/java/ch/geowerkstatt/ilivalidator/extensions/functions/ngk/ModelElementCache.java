@@ -0,0 +1,103 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.ehi.basics.settings.Settings;
+import ch.interlis.ili2c.metamodel.PathEl;
+import ch.interlis.ili2c.metamodel.TransferDescription;
+import ch.interlis.ili2c.metamodel.Viewable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache for model lookups of a {@link TransferDescription}, such as parsed attribute paths and classes by tag.
+ * One instance is shared by all functions of a validation run.
+ */
+public final class ModelElementCache {
+    private static final String TRANSIENT_KEY = ModelElementCache.class.getName();
+
+    private final TransferDescription td;
+    private final Map<PathKey, PathEl[]> attributePaths = new ConcurrentHashMap<>();
+    private final Map<String, Viewable> viewablesByTag = new ConcurrentHashMap<>();
+    private final Map<PathKey, ConstraintPlan> constraintPlans = new ConcurrentHashMap<>();
+
+    private ModelElementCache(TransferDescription td) {
+        this.td = td;
+    }
+
+    /**
+     * Get the cache for {@code td} stored in the transient objects of {@code settings},
+     * or create a new one if there is none for this {@link TransferDescription} yet.
+     */
+    public static ModelElementCache getInstance(Settings settings, TransferDescription td) {
+        synchronized (settings) {
+            Object cached = settings.getTransientObject(TRANSIENT_KEY);
+            if (cached instanceof ModelElementCache && ((ModelElementCache) cached).td == td) {
+                return (ModelElementCache) cached;
+            }
+
+            ModelElementCache cache = new ModelElementCache(td);
+            settings.setTransientObject(TRANSIENT_KEY, cache);
+            return cache;
+        }
+    }
+
+    /**
+     * Get the parsed {@code path} starting at {@code contextClass}. The path is parsed with {@code parser} on the first request.
+     *
+     * @return the parsed {@link PathEl} array or {@code null} if the path could not be parsed.
+     */
+    public PathEl[] getAttributePath(Viewable contextClass, String path, Function<String, PathEl[]> parser) {
+        return attributePaths.computeIfAbsent(new PathKey(contextClass, path), k -> parser.apply(path));
+    }
+
+    /**
+     * Get the {@link Viewable} with the qualified name {@code tag}.
+     *
+     * @return the {@link Viewable} or {@code null} if the element does not exist or is not a {@link Viewable}.
+     */
+    public Viewable getViewable(String tag) {
+        return viewablesByTag.computeIfAbsent(tag, t -> {
+            Object element = td.getElement(t);
+            return element instanceof Viewable ? (Viewable) element : null;
+        });
+    }
+
+    /**
+     * Get the {@link ConstraintPlan} for the geometry and code paths starting at {@code contextClass}.
+     * The plan is compiled with {@code compiler} on the first request.
+     */
+    ConstraintPlan getConstraintPlan(Viewable contextClass, String geometryPath, String codePath, Supplier<ConstraintPlan> compiler) {
+        // Paths are separated by a character which is not allowed in INTERLIS paths.
+        return constraintPlans.computeIfAbsent(new PathKey(contextClass, geometryPath + '\n' + codePath), k -> compiler.get());
+    }
+
+    private static final class PathKey {
+        private final Viewable contextClass;
+        private final String path;
+
+        PathKey(Viewable contextClass, String path) {
+            this.contextClass = contextClass;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PathKey)) {
+                return false;
+            }
+            PathKey that = (PathKey) o;
+            return contextClass == that.contextClass && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(contextClass), path);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+/**
+ * Compact 128-bit fingerprint of an ordered sequence of strings (e.g. object ids and attribute paths).
+ * The fingerprint is built in a single pass over the characters without allocating intermediate objects.
+ */
+final class ObjectSetFingerprint {
+    private final long high;
+    private final long low;
+    private final long elementCount;
+
+    private ObjectSetFingerprint(long high, long low, long elementCount) {
+        this.high = high;
+        this.low = low;
+        this.elementCount = elementCount;
+    }
+
+    long getElementCount() {
+        return elementCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ObjectSetFingerprint)) {
+            return false;
+        }
+        ObjectSetFingerprint that = (ObjectSetFingerprint) o;
+        return high == that.high && low == that.low && elementCount == that.elementCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Streaming builder for {@link ObjectSetFingerprint}.
+     */
+    static final class Builder {
+        private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+        private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long PRIME_3 = 0x165667B19E3779F9L;
+        private static final long NULL_MARKER = 0x27D4EB2F165667C5L;
+
+        private long h1 = PRIME_1;
+        private long h2 = PRIME_2;
+        private long elementCount;
+
+        /**
+         * Add the next element to the fingerprint. The length of each element is mixed in as well,
+         * so the sequences ("ab", "c") and ("a", "bc") result in different fingerprints.
+         */
+        Builder add(String value) {
+            if (value == null) {
+                mix(NULL_MARKER);
+            } else {
+                for (int i = 0; i < value.length(); i++) {
+                    mix(value.charAt(i));
+                }
+                mix(value.length());
+            }
+            elementCount++;
+            return this;
+        }
+
+        /**
+         * Add a fingerprint built before, e.g. of a set of objects. It counts as all of its elements.
+         */
+        Builder add(ObjectSetFingerprint fingerprint) {
+            mix(fingerprint.high);
+            mix(fingerprint.low);
+            elementCount += fingerprint.elementCount;
+            return this;
+        }
+
+        ObjectSetFingerprint build() {
+            long high = finalizeHash(h1 ^ elementCount);
+            long low = finalizeHash(h2 + high);
+            return new ObjectSetFingerprint(high + low, low, elementCount);
+        }
+
+        private void mix(long value) {
+            h1 = Long.rotateLeft(h1 ^ (value * PRIME_2), 31) * PRIME_1;
+            h2 = Long.rotateLeft(h2 + (value * PRIME_3), 27) * PRIME_2 + h1;
+        }
+
+        private static long finalizeHash(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            hash *= 0xC4CEB9FE1A85EC53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
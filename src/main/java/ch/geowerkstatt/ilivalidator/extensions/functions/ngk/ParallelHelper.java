@@ -0,0 +1,46 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public final class ParallelHelper {
+    // One pool per parallelism, shared by all evaluations. Idle workers terminate on their own and do not keep the JVM alive.
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private ParallelHelper() {
+        // Utility class
+    }
+
+    /**
+     * Apply {@code mapper} to all {@code items} on a shared fork/join pool limited to {@code parallelism} threads.
+     * If {@code parallelism} is 1 or less, the items are mapped sequentially on the calling thread.
+     *
+     * @return the mapped items in the same order as {@code items}.
+     */
+    public static <T, R> List<R> map(int parallelism, List<T> items, Function<T, R> mapper) {
+        if (parallelism <= 1 || items.size() < 2) {
+            return items.stream().map(mapper).collect(Collectors.toList());
+        }
+
+        ForkJoinPool pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+        try {
+            return pool.submit(() -> items.parallelStream().map(mapper).collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iox.IoxLogEvent;
+import ch.interlis.iox_j.logging.LogEventFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Cache for function results in a local directory, kept across validation runs.
+ * Each entry is stored in its own file named after its key and contains the boolean result
+ * and the log events emitted while computing it, so they can be replayed on a hit.
+ * Entries are written to a temporary file first and moved into place, so concurrent runs never read partial entries.
+ * Unreadable entries and entries written by another build of the plugin are treated as missing.
+ */
+final class PersistentResultCache {
+    private static final int MAGIC = 0x4E474B52;
+    private static final int FORMAT_VERSION = 2;
+    private static final String FILE_SUFFIX = ".result";
+    private static final String BUILD_PROPERTIES = "build.properties";
+    private static final String BUILD_ID = readBuildId();
+
+    private final Path directory;
+    private final String buildId;
+
+    PersistentResultCache(Path directory, String buildId) {
+        this.directory = directory;
+        this.buildId = buildId;
+    }
+
+    /**
+     * Get the id of this build of the plugin, set by the build in {@code build.properties}.
+     * Release builds use their version, snapshot builds their version and a hash of their compiled classes.
+     *
+     * @return the build id or {@code null} if it is not available, e.g. if the classes were not built by the Gradle build.
+     */
+    static String getBuildId() {
+        return BUILD_ID;
+    }
+
+    private static String readBuildId() {
+        try (InputStream input = PersistentResultCache.class.getResourceAsStream(BUILD_PROPERTIES)) {
+            if (input == null) {
+                return null;
+            }
+            Properties properties = new Properties();
+            properties.load(input);
+            String buildId = properties.getProperty("buildId");
+            if (buildId == null || buildId.trim().isEmpty() || buildId.contains("${")) {
+                return null;
+            }
+            return buildId.trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the entry stored for {@code key}.
+     *
+     * @return the entry or {@code null} if there is none or it cannot be read.
+     */
+    Entry get(String key) {
+        Path file = directory.resolve(key + FILE_SUFFIX);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION || !buildId.equals(readString(input))) {
+                return null;
+            }
+
+            boolean result = input.readBoolean();
+            int eventCount = input.readInt();
+            List<CachedEvent> events = new ArrayList<>(eventCount);
+            for (int i = 0; i < eventCount; i++) {
+                int kind = input.readInt();
+                String message = readString(input);
+                Double x = input.readBoolean() ? input.readDouble() : null;
+                Double y = input.readBoolean() ? input.readDouble() : null;
+                events.add(new CachedEvent(kind, message, x, y));
+            }
+            return new Entry(result, events);
+        } catch (IOException | RuntimeException e) {
+            // Missing, written in another format or corrupt: the result is computed again.
+            return null;
+        }
+    }
+
+    /**
+     * Store {@code result} and the {@code events} emitted while computing it for {@code key}, replacing an existing entry.
+     */
+    void put(String key, boolean result, List<IoxLogEvent> events) throws IOException {
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                writeString(output, buildId);
+                output.writeBoolean(result);
+                output.writeInt(events.size());
+                for (IoxLogEvent event : events) {
+                    output.writeInt(event.getEventKind());
+                    writeString(output, event.getEventMsg());
+                    writeCoordinate(output, event.getSourceObjectXCoord());
+                    writeCoordinate(output, event.getSourceObjectYCoord());
+                }
+            }
+
+            Path file = directory.resolve(key + FILE_SUFFIX);
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeCoordinate(DataOutputStream output, Double value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeDouble(value);
+        }
+    }
+
+    /**
+     * A cached result with its log events.
+     */
+    static final class Entry {
+        private final boolean result;
+        private final List<CachedEvent> events;
+
+        private Entry(boolean result, List<CachedEvent> events) {
+            this.result = result;
+            this.events = Collections.unmodifiableList(events);
+        }
+
+        boolean getResult() {
+            return result;
+        }
+
+        /**
+         * Emit the cached log events through {@code logger} in their original order.
+         * The events are attached to the current object of {@code logger}.
+         */
+        void replay(LogEventFactory logger) {
+            for (CachedEvent event : events) {
+                event.replay(logger);
+            }
+        }
+    }
+
+    private static final class CachedEvent {
+        private final int kind;
+        private final String message;
+        private final Double x;
+        private final Double y;
+
+        CachedEvent(int kind, String message, Double x, Double y) {
+            this.kind = kind;
+            this.message = message;
+            this.x = x;
+            this.y = y;
+        }
+
+        void replay(LogEventFactory logger) {
+            // The message is already formatted, pass it as argument so it is not formatted again.
+            if (kind == IoxLogEvent.ERROR) {
+                logger.addEvent(logger.logErrorMsg("{0}", x, y, null, message));
+            } else if (kind == IoxLogEvent.WARNING) {
+                logger.addEvent(logger.logWarningMsg("{0}", x, y, null, message));
+            } else {
+                logger.addEvent(logger.logInfoMsg("{0}", x, y, null, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded cache for function results. The least recently used entries are evicted
+ * as soon as either the number of entries or the total weight exceeds its limit.
+ * All entries are invalidated when the cache is used for a different scope (e.g. another transfer file).
+ * The cache is thread-safe. Values are computed without holding the lock, so concurrent callers missing the same key
+ * may compute it more than once; a cache belongs to one validator, which evaluates constraints on one thread.
+ */
+final class ResultCache<K, V> {
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<K> weigher;
+    private final LinkedHashMap<K, WeightedValue<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalWeight;
+    private Object scope;
+
+    ResultCache(int maxEntries, long maxWeight, ToLongFunction<K> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Get the cached value for {@code key} or compute it with {@code loader} and cache it.
+     */
+    V computeIfAbsent(Object currentScope, K key, Function<K, V> loader) {
+        synchronized (this) {
+            if (!Objects.equals(scope, currentScope)) {
+                invalidate();
+                scope = currentScope;
+            }
+
+            WeightedValue<V> entry = entries.get(key);
+            if (entry != null) {
+                return entry.value;
+            }
+        }
+
+        V value = loader.apply(key);
+        long weight = weigher.applyAsLong(key);
+
+        synchronized (this) {
+            if (maxEntries > 0 && weight <= maxWeight && Objects.equals(scope, currentScope)) {
+                WeightedValue<V> previous = entries.put(key, new WeightedValue<>(value, weight));
+                if (previous != null) {
+                    totalWeight -= previous.weight;
+                }
+                totalWeight += weight;
+                evict();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    synchronized void invalidate() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<K, WeightedValue<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && (entries.size() > maxEntries || totalWeight > maxWeight)) {
+            totalWeight -= iterator.next().getValue().weight;
+            iterator.remove();
+        }
+    }
+
+    private static final class WeightedValue<V> {
+        private final V value;
+        private final long weight;
+
+        WeightedValue(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
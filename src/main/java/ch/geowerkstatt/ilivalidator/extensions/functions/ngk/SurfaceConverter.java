@@ -0,0 +1,84 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.ehi.basics.types.OutParam;
+import ch.interlis.iom.IomObject;
+import ch.interlis.iox.IoxException;
+import ch.interlis.iox_j.jts.Iox2jtsext;
+import ch.interlis.iox_j.logging.LogEventFactory;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequenceFactory;
+import com.vividsolutions.jts.precision.GeometryPrecisionReducer;
+
+/**
+ * Converts INTERLIS surfaces to JTS geometries with the conversion options of one surface attribute.
+ * Instances are immutable and may be shared between threads.
+ */
+final class SurfaceConverter {
+    private static final GeometryFactory FLOATING_FACTORY = new GeometryFactory();
+    private static final GeometryFactory FLOATING_PACKED_FACTORY = new GeometryFactory(new PrecisionModel(), 0,
+            new PackedCoordinateSequenceFactory(PackedCoordinateSequenceFactory.DOUBLE, 2));
+
+    private final double arcTolerance;
+    private final boolean removeRedundantVertices;
+    private final GeometryFactory factory;
+    private final GeometryPrecisionReducer precisionReducer;
+    private final boolean copyToFactory;
+
+    /**
+     * Create a converter with the given options.
+     *
+     * @param arcTolerance the maximum deviation of the straight segments approximating arcs.
+     * @param precisionModel the precision model the converted geometries are reduced to, {@code null} to keep floating precision.
+     * @param removeRedundantVertices whether repeated and collinear vertices are removed, see {@link GeometryHelper#removeRedundantVertices(Geometry)}.
+     * @param packedCoordinates whether the coordinates are stored in packed 2D double arrays instead of {@link com.vividsolutions.jts.geom.Coordinate} objects.
+     */
+    SurfaceConverter(double arcTolerance, PrecisionModel precisionModel, boolean removeRedundantVertices, boolean packedCoordinates) {
+        this.arcTolerance = arcTolerance;
+        this.removeRedundantVertices = removeRedundantVertices;
+        if (precisionModel == null || precisionModel.isFloating()) {
+            this.factory = packedCoordinates ? FLOATING_PACKED_FACTORY : FLOATING_FACTORY;
+            this.precisionReducer = null;
+        } else {
+            this.factory = packedCoordinates
+                    ? new GeometryFactory(precisionModel, 0, FLOATING_PACKED_FACTORY.getCoordinateSequenceFactory())
+                    : new GeometryFactory(precisionModel);
+            this.precisionReducer = new GeometryPrecisionReducer(precisionModel);
+            this.precisionReducer.setChangePrecisionModel(true);
+        }
+        this.copyToFactory = packedCoordinates;
+    }
+
+    /**
+     * Get the factory of the converted geometries, use it to combine them.
+     */
+    GeometryFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Describe the options which affect the converted geometries, e.g. to tell whether results computed with another converter are still valid.
+     */
+    @Override
+    public String toString() {
+        return "arcTolerance=" + arcTolerance
+                + ", precision=" + factory.getPrecisionModel()
+                + ", removeRedundantVertices=" + removeRedundantVertices;
+    }
+
+    /**
+     * Convert the MULTISURFACE {@code surface}. Conversion problems are logged to {@code log} as warnings.
+     */
+    Geometry convert(IomObject surface, LogEventFactory log) throws IoxException {
+        Geometry geometry = Iox2jtsext.multisurface2JTS(surface, arcTolerance, new OutParam<>(), log, 0, "warning");
+        if (copyToFactory) {
+            // The reduction and all overlays keep the coordinate sequence factory of their input.
+            geometry = factory.createGeometry(geometry);
+        }
+        if (precisionReducer != null) {
+            geometry = precisionReducer.reduce(geometry);
+        }
+        return removeRedundantVertices ? GeometryHelper.removeRedundantVertices(geometry) : geometry;
+    }
+}
@@ -0,0 +1,236 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.util.PolygonExtracter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+public final class TilingHelper {
+    // Margin around a tile within which the outer geometry is kept, relative to the tile size.
+    private static final double OUTER_MARGIN_FACTOR = 0.05;
+    // Distance within which a clipped piece of the inner geometry counts as covered, far below the resolution of the coordinates.
+    private static final double CLIPPING_TOLERANCE = 1e-6;
+
+    private TilingHelper() {
+        // Utility class
+    }
+
+    /**
+     * Check whether {@code outer} covers {@code inner} tile by tile, so the work per tile is bounded by the geometry inside the tile.
+     * The extent of {@code inner} is partitioned into square tiles of {@code tileSize}. {@code inner} is clipped to each tile and
+     * {@code outer} to the tile grown by a margin, both by halving the grid recursively, so each geometry is clipped a logarithmic
+     * number of times instead of once per tile. The staged covers check (see {@link CoverageHelper#getUncoveredComponents(Geometry, Geometry)})
+     * and the difference run per tile on the clipped pieces, and the difference is intersected with the tile.
+     * The tile borders add vertices to the inner pieces which may lie slightly outside a shared boundary,
+     * so a clipped piece within a tiny tolerance of the outer pieces counts as covered.
+     * The offending parts of all tiles are merged again, so a violation crossing tile borders results in one offending geometry.
+     *
+     * @param outer the polygonal geometry which should cover {@code inner}.
+     * @param inner the polygonal geometry to test.
+     * @param tileSize the width and height of the tiles.
+     * @param parallelism the maximum number of tiles checked in parallel.
+     * @param tileVertexCounts receives the number of vertices of the inner and outer pieces of each checked tile, possibly from several threads.
+     */
+    public static CoverageResult checkCoverage(Geometry outer, Geometry inner, double tileSize, int parallelism, IntConsumer tileVertexCounts) {
+        if (inner.isEmpty()) {
+            return CoverageResult.covered();
+        }
+
+        Envelope extent = inner.getEnvelopeInternal();
+        TileGrid grid = new TileGrid(extent, tileSize);
+        if (grid.columns == 1 && grid.rows == 1) {
+            tileVertexCounts.accept(inner.getNumPoints() + outer.getNumPoints());
+            return CoverageHelper.checkCoverage(outer, inner);
+        }
+
+        List<Tile> tiles = new ArrayList<>();
+        splitTiles(grid, 0, grid.columns, 0, grid.rows, getComponents(inner), new ArrayList<>(), getComponents(outer), tiles);
+
+        GeometryFactory factory = inner.getFactory();
+        List<CoverageResult> results = ParallelHelper.map(parallelism, tiles, tile -> {
+            tileVertexCounts.accept(tile.getNumPoints());
+            return tile.checkCoverage(factory);
+        });
+
+        List<Geometry> uncoveredParts = new ArrayList<>();
+        List<Geometry> offendingParts = new ArrayList<>();
+        for (CoverageResult result : results) {
+            if (!result.isCovered()) {
+                uncoveredParts.addAll(getComponents(result.getUncovered()));
+                offendingParts.addAll(PolygonExtracter.getPolygons(result.getOffending()));
+            }
+        }
+        if (uncoveredParts.isEmpty()) {
+            return CoverageResult.covered();
+        }
+
+        Geometry uncovered = uncoveredParts.size() == 1 ? uncoveredParts.get(0) : factory.buildGeometry(uncoveredParts);
+        Geometry offending = offendingParts.isEmpty() ? factory.createGeometryCollection(new Geometry[0]) : GeometryHelper.union(offendingParts);
+        return CoverageResult.uncovered(uncovered, offending);
+    }
+
+    /**
+     * Clip the pieces to the tiles of the columns {@code [minColumn, maxColumn)} and rows {@code [minRow, maxRow)},
+     * halving the range along its longer side until it contains one tile. Tiles without inner pieces are skipped.
+     *
+     * @param wholeInner the components of the inner geometry inside the range which were not clipped.
+     * @param clippedInner the pieces of the inner geometry which were clipped to a tile border.
+     * @param outer the pieces of the outer geometry inside the range grown by the margin.
+     */
+    private static void splitTiles(TileGrid grid, int minColumn, int maxColumn, int minRow, int maxRow,
+                                   List<Geometry> wholeInner, List<Geometry> clippedInner, List<Geometry> outer, List<Tile> tiles) {
+        if (wholeInner.isEmpty() && clippedInner.isEmpty()) {
+            return;
+        }
+        if (maxColumn - minColumn == 1 && maxRow - minRow == 1) {
+            tiles.add(new Tile(grid.getEnvelope(minColumn, maxColumn, minRow, maxRow), wholeInner, clippedInner, outer));
+            return;
+        }
+
+        if (maxColumn - minColumn >= maxRow - minRow) {
+            int middle = (minColumn + maxColumn) / 2;
+            splitRange(grid, minColumn, middle, minRow, maxRow, wholeInner, clippedInner, outer, tiles);
+            splitRange(grid, middle, maxColumn, minRow, maxRow, wholeInner, clippedInner, outer, tiles);
+        } else {
+            int middle = (minRow + maxRow) / 2;
+            splitRange(grid, minColumn, maxColumn, minRow, middle, wholeInner, clippedInner, outer, tiles);
+            splitRange(grid, minColumn, maxColumn, middle, maxRow, wholeInner, clippedInner, outer, tiles);
+        }
+    }
+
+    private static void splitRange(TileGrid grid, int minColumn, int maxColumn, int minRow, int maxRow,
+                                   List<Geometry> wholeInner, List<Geometry> clippedInner, List<Geometry> outer, List<Tile> tiles) {
+        Envelope range = grid.getEnvelope(minColumn, maxColumn, minRow, maxRow);
+        List<Geometry> rangeWholeInner = new ArrayList<>();
+        List<Geometry> rangeClippedInner = new ArrayList<>();
+        clip(wholeInner, range, rangeWholeInner, rangeClippedInner);
+        clip(clippedInner, range, rangeClippedInner, rangeClippedInner);
+        if (rangeWholeInner.isEmpty() && rangeClippedInner.isEmpty()) {
+            return;
+        }
+
+        Envelope outerRange = new Envelope(range);
+        outerRange.expandBy(grid.margin);
+        List<Geometry> rangeOuter = new ArrayList<>();
+        clip(outer, outerRange, rangeOuter, rangeOuter);
+
+        splitTiles(grid, minColumn, maxColumn, minRow, maxRow, rangeWholeInner, rangeClippedInner, rangeOuter, tiles);
+    }
+
+    /**
+     * Clip the polygonal {@code components} to {@code envelope}. Components inside the envelope are added to {@code inside} unchanged,
+     * the polygons of the clipped components to {@code clipped}.
+     */
+    private static void clip(List<Geometry> components, Envelope envelope, List<Geometry> inside, List<Geometry> clipped) {
+        Geometry envelopeGeometry = null;
+        for (Geometry component : components) {
+            Envelope componentEnvelope = component.getEnvelopeInternal();
+            if (!envelope.intersects(componentEnvelope)) {
+                continue;
+            }
+            if (envelope.covers(componentEnvelope)) {
+                inside.add(component);
+            } else {
+                if (envelopeGeometry == null) {
+                    envelopeGeometry = component.getFactory().toGeometry(envelope);
+                }
+                clipped.addAll(PolygonExtracter.getPolygons(component.intersection(envelopeGeometry)));
+            }
+        }
+    }
+
+    private static List<Geometry> getComponents(Geometry geometry) {
+        List<Geometry> components = new ArrayList<>(geometry.getNumGeometries());
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry component = geometry.getGeometryN(i);
+            if (!component.isEmpty()) {
+                components.add(component);
+            }
+        }
+        return components;
+    }
+
+    private static int countPoints(List<Geometry> pieces) {
+        int count = 0;
+        for (Geometry piece : pieces) {
+            count += piece.getNumPoints();
+        }
+        return count;
+    }
+
+    /**
+     * Grid of square tiles over an extent, the last column and row end at the border of the extent.
+     */
+    private static final class TileGrid {
+        private final Envelope extent;
+        private final double tileSize;
+        private final double margin;
+        private final int columns;
+        private final int rows;
+
+        TileGrid(Envelope extent, double tileSize) {
+            this.extent = extent;
+            this.tileSize = tileSize;
+            this.margin = tileSize * OUTER_MARGIN_FACTOR;
+            this.columns = Math.max(1, (int) Math.ceil(extent.getWidth() / tileSize));
+            this.rows = Math.max(1, (int) Math.ceil(extent.getHeight() / tileSize));
+        }
+
+        Envelope getEnvelope(int minColumn, int maxColumn, int minRow, int maxRow) {
+            return new Envelope(getX(minColumn), getX(maxColumn), getY(minRow), getY(maxRow));
+        }
+
+        private double getX(int column) {
+            return column == columns ? extent.getMaxX() : extent.getMinX() + column * tileSize;
+        }
+
+        private double getY(int row) {
+            return row == rows ? extent.getMaxY() : extent.getMinY() + row * tileSize;
+        }
+    }
+
+    /**
+     * The pieces of the inner and outer geometry of one tile.
+     */
+    private static final class Tile {
+        private final Envelope envelope;
+        private final List<Geometry> wholeInner;
+        private final List<Geometry> clippedInner;
+        private final List<Geometry> outer;
+
+        Tile(Envelope envelope, List<Geometry> wholeInner, List<Geometry> clippedInner, List<Geometry> outer) {
+            this.envelope = envelope;
+            this.wholeInner = wholeInner;
+            this.clippedInner = clippedInner;
+            this.outer = outer;
+        }
+
+        int getNumPoints() {
+            return countPoints(wholeInner) + countPoints(clippedInner) + countPoints(outer);
+        }
+
+        CoverageResult checkCoverage(GeometryFactory factory) {
+            Geometry outerPart = factory.buildGeometry(outer);
+            List<Geometry> uncovered = new ArrayList<>(CoverageHelper.getUncoveredComponents(outerPart, factory.buildGeometry(wholeInner)));
+            Geometry tolerantOuterPart = null;
+            for (Geometry piece : CoverageHelper.getUncoveredComponents(outerPart, factory.buildGeometry(clippedInner))) {
+                if (tolerantOuterPart == null) {
+                    tolerantOuterPart = outerPart.buffer(CLIPPING_TOLERANCE);
+                }
+                if (!tolerantOuterPart.covers(piece)) {
+                    uncovered.add(piece);
+                }
+            }
+            if (uncovered.isEmpty()) {
+                return CoverageResult.covered();
+            }
+
+            Geometry uncoveredPart = factory.buildGeometry(uncovered);
+            return CoverageResult.uncovered(uncoveredPart, uncoveredPart.difference(outerPart).intersection(factory.toGeometry(envelope)));
+        }
+    }
+}
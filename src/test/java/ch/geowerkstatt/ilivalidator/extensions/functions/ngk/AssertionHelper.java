@@ -85,4 +85,18 @@ public final class AssertionHelper {
 
         assertArrayEquals(expectedMessages, actualMessages);
     }
+
+    /**
+     * Assert that {@code actual} contains the same events as {@code expected} in the same order,
+     * comparing message, source object and position.
+     */
+    public static void assertEventsAreEqual(List<IoxLogEvent> expected, List<IoxLogEvent> actual) {
+        assertArrayEquals(describeEvents(expected), describeEvents(actual));
+    }
+
+    private static String[] describeEvents(List<IoxLogEvent> events) {
+        return events.stream()
+                .map(event -> String.format("%s [%s] (%s, %s)", event.getEventMsg(), event.getSourceObjectXtfId(), event.getSourceObjectXCoord(), event.getSourceObjectYCoord()))
+                .toArray(String[]::new);
+    }
 }
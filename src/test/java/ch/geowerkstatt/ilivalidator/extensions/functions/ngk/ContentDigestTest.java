@@ -0,0 +1,34 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iom.IomObject;
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+
+public final class ContentDigestTest {
+
+    @Test
+    public void sameContentSameDigest() {
+        String digest = new ContentDigest().add("a").add(IomObjectHelper.createRectangleGeometry("0", "0", "10", "10")).toHex();
+        Assert.equals(64, digest.length());
+        Assert.equals(digest, new ContentDigest().add("a").add(IomObjectHelper.createRectangleGeometry("0", "0", "10", "10")).toHex());
+    }
+
+    @Test
+    public void digestIsStableAcrossRuns() {
+        // Persisted results are looked up by this key, so the encoding of the input must not change within a format version.
+        Assert.equals("3d7291c5a60d9ef74b13005883b8b47a610cf1f0b5bcd00aac4ebd2d2f416317", new ContentDigest().add("a").add((String) null).toHex());
+    }
+
+    @Test
+    public void elementBoundariesChangeDigest() {
+        Assert.isTrue(!new ContentDigest().add("ab").add("c").toHex().equals(new ContentDigest().add("a").add("bc").toHex()));
+        Assert.isTrue(!new ContentDigest().add((String) null).toHex().equals(new ContentDigest().add("").toHex()));
+    }
+
+    @Test
+    public void changedCoordinateChangesDigest() {
+        IomObject surface = IomObjectHelper.createRectangleGeometry("0", "0", "10", "10");
+        IomObject movedSurface = IomObjectHelper.createRectangleGeometry("0", "0", "10", "10.001");
+        Assert.isTrue(!new ContentDigest().add(surface).toHex().equals(new ContentDigest().add(movedSurface).toHex()));
+    }
+}
@@ -0,0 +1,80 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public final class CoverageHelperTest {
+    private static final String SQUARE = "POLYGON ((0 0, 30 0, 30 30, 0 30, 0 0))";
+    // A square with a notch from the top, between x = 10 and x = 20.
+    private static final String NOTCHED_SQUARE = "POLYGON ((0 0, 30 0, 30 30, 20 30, 20 10, 10 10, 10 30, 0 30, 0 0))";
+
+    private final WKTReader reader = new WKTReader();
+
+    @Test
+    public void componentsInsideOrOnBoundaryAreCovered() throws ParseException {
+        Geometry inner = reader.read("MULTIPOLYGON (((0 0, 10 0, 10 10, 0 10, 0 0)), ((15 15, 25 15, 25 25, 15 25, 15 15)))");
+
+        Assert.isTrue(CoverageHelper.getUncoveredComponents(reader.read(SQUARE), inner).isEmpty());
+        Assert.isTrue(CoverageHelper.covers(reader.read(SQUARE), inner));
+        Assert.isTrue(CoverageHelper.checkCoverage(reader.read(SQUARE), inner).isCovered());
+    }
+
+    @Test
+    public void componentOutsideEnvelopeIsUncovered() throws ParseException {
+        Geometry inner = reader.read("MULTIPOLYGON (((5 5, 10 5, 10 10, 5 10, 5 5)), ((25 25, 35 25, 35 35, 25 35, 25 25)))");
+
+        List<Geometry> uncovered = CoverageHelper.getUncoveredComponents(reader.read(SQUARE), inner);
+        Assert.equals(1, uncovered.size());
+        Assert.isTrue(uncovered.get(0) == inner.getGeometryN(1));
+    }
+
+    @Test
+    public void componentWithExteriorVertexIsUncovered() throws ParseException {
+        // Inside the envelope of the outer polygon, but one vertex lies in the notch.
+        Geometry inner = reader.read("POLYGON ((2 2, 15 2, 15 20, 2 20, 2 2))");
+
+        List<Geometry> uncovered = CoverageHelper.getUncoveredComponents(reader.read(NOTCHED_SQUARE), inner);
+        Assert.equals(1, uncovered.size());
+        Assert.isTrue(uncovered.get(0) == inner);
+    }
+
+    @Test
+    public void componentWithExteriorSegmentIsUncovered() throws ParseException {
+        // All vertices lie in the arms of the outer polygon, only the segments cross the notch.
+        Geometry inner = reader.read("POLYGON ((2 20, 28 20, 28 25, 2 25, 2 20))");
+
+        Assert.equals(1, CoverageHelper.getUncoveredComponents(reader.read(NOTCHED_SQUARE), inner).size());
+        Assert.isTrue(!CoverageHelper.covers(reader.read(NOTCHED_SQUARE), inner));
+    }
+
+    @Test
+    public void coversStopsAtFirstUncoveredComponent() throws ParseException {
+        Geometry inner = reader.read("MULTIPOLYGON (((25 25, 35 25, 35 35, 25 35, 25 25)), ((40 40, 50 40, 50 50, 40 50, 40 40)))");
+
+        Assert.equals(2, CoverageHelper.getUncoveredComponents(reader.read(SQUARE), inner).size());
+        Assert.isTrue(!CoverageHelper.covers(reader.read(SQUARE), inner));
+    }
+
+    @Test
+    public void emptyGeometries() throws ParseException {
+        Geometry inner = reader.read("MULTIPOLYGON (((5 5, 10 5, 10 10, 5 10, 5 5)), ((20 20, 25 20, 25 25, 20 25, 20 20)))");
+
+        Assert.isTrue(CoverageHelper.covers(reader.read(SQUARE), reader.read("POLYGON EMPTY")));
+        Assert.equals(2, CoverageHelper.getUncoveredComponents(reader.read("POLYGON EMPTY"), inner).size());
+    }
+
+    @Test
+    public void offendingAreaIsDifferenceOfUncoveredComponents() throws ParseException {
+        Geometry inner = reader.read("MULTIPOLYGON (((5 5, 10 5, 10 10, 5 10, 5 5)), ((25 25, 35 25, 35 35, 25 35, 25 25)))");
+
+        CoverageResult result = CoverageHelper.checkCoverage(reader.read(SQUARE), inner);
+        Assert.isTrue(!result.isCovered());
+        Assert.isTrue(result.getUncovered().equalsTopo(inner.getGeometryN(1)));
+        Assert.isTrue(result.getOffending().equalsTopo(reader.read("POLYGON ((30 25, 35 25, 35 35, 25 35, 25 30, 30 30, 30 25))")));
+    }
+}
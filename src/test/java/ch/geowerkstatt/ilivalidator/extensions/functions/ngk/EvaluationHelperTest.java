@@ -0,0 +1,73 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.ili2c.Ili2cFailure;
+import ch.interlis.ili2c.metamodel.Element;
+import ch.interlis.ili2c.metamodel.PathEl;
+import ch.interlis.ili2c.metamodel.TextType;
+import ch.interlis.ili2c.metamodel.TransferDescription;
+import ch.interlis.ili2c.metamodel.Viewable;
+import ch.interlis.iom.IomObject;
+import ch.interlis.iom_j.Iom_jObject;
+import ch.interlis.iox_j.validator.Validator;
+import ch.interlis.iox_j.validator.Value;
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+public final class EvaluationHelperTest {
+    private static final String ILI_FILE = "IsInsideAreaByCode/SetConstraints.ili";
+    private static final String BASE_CLASS = "TestSuite.FunctionTestTopic.BaseClass";
+
+    private static Validator validator;
+    private static PathEl[] surfacePath;
+    private static PathEl[] codePath;
+
+    @BeforeAll
+    @SuppressWarnings("unchecked")
+    public static void compileModel() throws Ili2cFailure {
+        TransferDescription td = ValidationTestHelper.compileModel(ILI_FILE);
+        validator = ValidationTestHelper.createValidator(td);
+
+        Viewable<Element> baseClass = (Viewable<Element>) td.getElement(BASE_CLASS);
+        surfacePath = EvaluationHelper.getAttributePathEl(validator, baseClass, new Value(new TextType(), "surface"));
+        codePath = EvaluationHelper.getAttributePathEl(validator, baseClass, new Value(new TextType(), "codeEnum"));
+    }
+
+    @Test
+    public void singleAttributePathIsReadDirectly() {
+        IomObject object = createObject("code_2");
+
+        // Without a validator only the direct read can succeed.
+        Collection<IomObject> surfaces = EvaluationHelper.evaluateAttributes(null, object, surfacePath);
+        Assert.equals(1, surfaces.size());
+        Assert.isTrue(surfaces.iterator().next() == object.getattrobj("surface", 0));
+        Assert.equals("code_2", EvaluationHelper.getAttributeString(null, object, codePath));
+    }
+
+    @Test
+    public void directReadGivesSameResultAsValidator() {
+        IomObject object = createObject("code_2");
+
+        Collection<IomObject> expected = EvaluationHelper.evaluateAttributes(validator, new Value(Collections.singletonList(object)), surfacePath);
+        Assert.equals(new ArrayList<>(expected), new ArrayList<>(EvaluationHelper.evaluateAttributes(validator, object, surfacePath)));
+    }
+
+    @Test
+    public void missingValuesAreEmpty() {
+        IomObject object = new Iom_jObject(BASE_CLASS, "o1");
+
+        Assert.isTrue(EvaluationHelper.evaluateAttributes(validator, object, surfacePath).isEmpty());
+        Assert.isTrue(EvaluationHelper.getAttributeString(validator, object, codePath) == null);
+    }
+
+    private static IomObject createObject(String code) {
+        IomObject object = new Iom_jObject(BASE_CLASS, "o1");
+        object.setattrvalue("codeEnum", code);
+        object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("2600000", "1200000", "2600010", "1200010"));
+        return object;
+    }
+}
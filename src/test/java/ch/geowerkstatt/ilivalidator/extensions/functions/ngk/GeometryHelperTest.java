@@ -0,0 +1,71 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+
+public final class GeometryHelperTest {
+    private final WKTReader reader = new WKTReader();
+
+    @Test
+    public void removeCollinearRun() throws ParseException {
+        Geometry geometry = reader.read("POLYGON ((0 0, 2 0, 5 0, 10 0, 10 10, 0 10, 0 0))");
+
+        Geometry reduced = GeometryHelper.removeRedundantVertices(geometry);
+        assertReduced(geometry, reduced, 5);
+    }
+
+    @Test
+    public void removeRepeatedVertex() throws ParseException {
+        Geometry geometry = reader.read("POLYGON ((0 0, 10 0, 10 0, 10 10, 0 10, 0 0))");
+
+        Geometry reduced = GeometryHelper.removeRedundantVertices(geometry);
+        assertReduced(geometry, reduced, 5);
+    }
+
+    @Test
+    public void removeCollinearClosingVertex() throws ParseException {
+        Geometry geometry = reader.read("POLYGON ((5 0, 10 0, 10 10, 0 10, 0 0, 5 0))");
+
+        Geometry reduced = GeometryHelper.removeRedundantVertices(geometry);
+        assertReduced(geometry, reduced, 5);
+        Assert.isTrue(reduced.getCoordinates()[0].equals2D(reduced.getCoordinates()[4]));
+    }
+
+    @Test
+    public void removeInHolesAndMultiPolygons() throws ParseException {
+        Geometry geometry = reader.read("MULTIPOLYGON (((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 5, 2 8, 8 8, 8 2, 2 2)), ((20 0, 30 0, 30 5, 30 10, 20 10, 20 0)))");
+
+        Geometry reduced = GeometryHelper.removeRedundantVertices(geometry);
+        assertReduced(geometry, reduced, 15);
+    }
+
+    @Test
+    public void keepSpike() throws ParseException {
+        Geometry geometry = reader.read("POLYGON ((0 0, 10 0, 10 10, 5 10, 5 15, 5 10, 0 10, 0 0))");
+
+        Assert.isTrue(GeometryHelper.removeRedundantVertices(geometry) == geometry);
+    }
+
+    @Test
+    public void keepRingWhichWouldBecomeInvalid() throws ParseException {
+        Geometry geometry = reader.read("POLYGON ((0 0, 5 0, 10 0, 0 0))");
+
+        Assert.isTrue(GeometryHelper.removeRedundantVertices(geometry) == geometry);
+    }
+
+    @Test
+    public void keepRingWithoutRedundantVertices() throws ParseException {
+        Geometry geometry = reader.read("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))");
+
+        Assert.isTrue(GeometryHelper.removeRedundantVertices(geometry) == geometry);
+    }
+
+    private static void assertReduced(Geometry geometry, Geometry reduced, int expectedCoordinateCount) {
+        Assert.equals(expectedCoordinateCount, reduced.getNumPoints());
+        Assert.isTrue(reduced.isValid());
+        Assert.isTrue(reduced.equalsTopo(geometry));
+    }
+}
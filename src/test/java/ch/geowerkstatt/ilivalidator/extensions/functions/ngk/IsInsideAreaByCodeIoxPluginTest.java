@@ -4,17 +4,25 @@ import ch.interlis.ili2c.Ili2cFailure;
 import ch.interlis.iom.IomObject;
 import ch.interlis.iom_j.Iom_jObject;
 import ch.interlis.iox.IoxException;
+import ch.interlis.iox.IoxLogEvent;
+import ch.interlis.iox_j.logging.LogEventFactory;
 import com.vividsolutions.jts.util.Assert;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -32,15 +40,6 @@ public final class IsInsideAreaByCodeIoxPluginTest {
         vh = new ValidationTestHelper(new IsInsideAreaByCodeIoxPlugin());
     }
 
-    @AfterEach
-    public void tearDown() throws NoSuchFieldException, IllegalAccessException {
-        // Clear the cache
-        Field field = IsInsideAreaByCodeIoxPlugin.class.getDeclaredField("OBJECTS_CACHE");
-        field.setAccessible(true);
-        Map<?, ?> cache = (Map<?, ?>) field.get(null);
-        cache.clear();
-    }
-
     @Test
     public void setConstraintOk() throws Ili2cFailure, IoxException {
         LogCollector logger = vh.runValidation(new String[]{TEST_DATA_OK}, new String[]{ILI_FILE});
@@ -62,6 +61,177 @@ public final class IsInsideAreaByCodeIoxPluginTest {
         AssertionHelper.assertConstraintErrors(logger, 1, "insideAreaConstraintNumeric");
     }
 
+    @Test
+    public void setConstraintFailParallel() throws Ili2cFailure, IoxException {
+        vh.setSetting(FunctionSettings.PARALLEL, "true");
+        vh.setSetting(FunctionSettings.PARALLELISM, "4");
+
+        LogCollector logger = vh.runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE});
+        LogCollector sequential = new ValidationTestHelper(new IsInsideAreaByCodeIoxPlugin()).runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE});
+        Assert.equals(9, logger.getErrs().size());
+
+        AssertionHelper.assertEventsAreEqual(sequential.getErrs(), logger.getErrs());
+        AssertionHelper.assertEventsAreEqual(sequential.getWarn(), logger.getWarn());
+    }
+
+    @Test
+    public void setConstraintFailIncremental() throws Ili2cFailure, IoxException {
+        vh.setSetting(FunctionSettings.INCREMENTAL_BATCH_SIZE, "2");
+
+        LogCollector logger = vh.runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE});
+        LogCollector sequential = new ValidationTestHelper(new IsInsideAreaByCodeIoxPlugin()).runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE});
+        Assert.equals(9, logger.getErrs().size());
+
+        AssertionHelper.assertEventsAreEqual(sequential.getErrs(), logger.getErrs());
+        AssertionHelper.assertEventsAreEqual(sequential.getWarn(), logger.getWarn());
+    }
+
+    @Test
+    public void resultCacheServesUnchangedObjectsFromDisk(@TempDir Path cacheDirectory) throws Ili2cFailure, IOException {
+        vh.setSetting(FunctionSettings.RESULT_CACHE_DIRECTORY, cacheDirectory.toString());
+
+        LogCollector computed = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createDisjointObjects("10"));
+        Assert.equals(2, computed.getErrs().size());
+
+        // Replace the stored result by a marker: the next run only reports it if the result is read from disk.
+        String buildId = PersistentResultCache.getBuildId();
+        Assert.isTrue(buildId != null);
+        PersistentResultCache cache = new PersistentResultCache(cacheDirectory, buildId);
+        LogEventFactory markerLog = new LogEventFactory();
+        List<IoxLogEvent> marker = Collections.singletonList(markerLog.logErrorMsg("Result read from the cache."));
+        List<Path> files;
+        try (Stream<Path> list = Files.list(cacheDirectory)) {
+            files = list.filter(file -> file.getFileName().toString().endsWith(".result")).collect(Collectors.toList());
+        }
+        Assert.equals(1, files.size());
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            cache.put(fileName.substring(0, fileName.length() - ".result".length()), true, marker);
+        }
+
+        LogCollector cached = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createDisjointObjects("10"));
+        AssertionHelper.assertEventMessagesAreEqual(cached.getErrs(), "Result read from the cache.");
+
+        LogCollector changed = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createDisjointObjects("11"));
+        AssertionHelper.assertEventMessagesAreEqual(changed.getErrs(),
+                "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code 'code_10' and 'code_30'. The offending geometry is near: POINT (18 30)",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+    }
+
+    @Test
+    public void resultCacheReportsCurrentIdsOfObjectsWithoutCode(@TempDir Path cacheDirectory) throws Ili2cFailure {
+        vh.setSetting(FunctionSettings.RESULT_CACHE_DIRECTORY, cacheDirectory.toString());
+
+        LogCollector first = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createObjectsWithoutCode("o3"));
+        AssertionHelper.assertEventMessagesAreEqual(first.getErrs(),
+                "IsInsideAreaByCode found object 'o3' without code",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+
+        // Same geometries and codes, only the object without code is renamed.
+        LogCollector renamed = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createObjectsWithoutCode("o4"));
+        AssertionHelper.assertEventMessagesAreEqual(renamed.getErrs(),
+                "IsInsideAreaByCode found object 'o4' without code",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+    }
+
+    private static IomObject[] createObjectsWithoutCode(String oid) {
+        IomObject inner = new Iom_jObject(TEST_CLASS, "o1");
+        inner.setattrvalue("code", "code_10");
+        inner.addattrobj("surface", IomObjectHelper.createRectangleGeometry("20", "20", "30", "30"));
+        IomObject outer = new Iom_jObject(TEST_CLASS, "o2");
+        outer.setattrvalue("code", "code_30");
+        outer.addattrobj("surface", IomObjectHelper.createRectangleGeometry("10", "10", "50", "50"));
+        IomObject withoutCode = new Iom_jObject(TEST_CLASS, oid);
+        withoutCode.addattrobj("surface", IomObjectHelper.createRectangleGeometry("60", "60", "70", "70"));
+        return new IomObject[]{inner, outer, withoutCode};
+    }
+
+    private static IomObject[] createDisjointObjects(String x1) {
+        IomObject inner = new Iom_jObject(TEST_CLASS, "o1");
+        inner.setattrvalue("code", "code_10");
+        inner.addattrobj("surface", IomObjectHelper.createRectangleGeometry(x1, "10", "25", "50"));
+        IomObject outer = new Iom_jObject(TEST_CLASS, "o2");
+        outer.setattrvalue("code", "code_30");
+        outer.addattrobj("surface", IomObjectHelper.createRectangleGeometry("35", "10", "50", "50"));
+        return new IomObject[]{inner, outer};
+    }
+
+    @Test
+    public void setConstraintFailWithMetrics() throws Ili2cFailure, IoxException {
+        vh.setSetting(FunctionSettings.METRICS, "true");
+        FunctionMetrics.getInstance().reset();
+
+        LogCollector logger = vh.runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE});
+        Assert.equals(9, logger.getErrs().size());
+        AssertionHelper.assertConstraintErrors(logger, 1, "insideAreaConstraintNumeric");
+
+        String[] summaries = FunctionMetrics.getInstance().getConstraintSummaries();
+        Assert.isTrue(Arrays.stream(summaries).anyMatch(s -> s.contains("insideAreaConstraintNumeric") && s.contains("evaluations=") && s.contains("levels=")));
+    }
+
+    @Test
+    public void metricsSummaryCoversCurrentValidation() throws Ili2cFailure, IoxException {
+        vh.setSetting(FunctionSettings.METRICS, "true");
+
+        List<String> firstEvaluations = getLoggedEvaluationCounts(vh.runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE}));
+        List<String> secondEvaluations = getLoggedEvaluationCounts(vh.runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE}));
+
+        Assert.isTrue(!firstEvaluations.isEmpty());
+        Assert.equals(firstEvaluations, secondEvaluations);
+    }
+
+    @Test
+    public void constraintsOnSameObjectsShareGeometries() throws Ili2cFailure, IoxException {
+        vh.setSetting(FunctionSettings.METRICS, "true");
+
+        List<String> summaries = getBaseClassMetricsSummaries(vh.runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE}));
+        Assert.equals(2, summaries.size());
+
+        // The constraint evaluated second reuses every geometry converted by the first one.
+        Assert.equals(0L, getCounter(summaries.get(0), "sharedGeometries"));
+        Assert.isTrue(getCounter(summaries.get(0), "vertices") > 0);
+        Assert.isTrue(getCounter(summaries.get(1), "sharedGeometries") > 0);
+        Assert.equals(0L, getCounter(summaries.get(1), "vertices"));
+    }
+
+    @Test
+    public void constraintsDoNotShareGeometriesIfDisabled() throws Ili2cFailure, IoxException {
+        vh.setSetting(FunctionSettings.METRICS, "true");
+        vh.setSetting(FunctionSettings.SHARE_GEOMETRIES, "false");
+
+        List<String> summaries = getBaseClassMetricsSummaries(vh.runValidation(new String[]{TEST_DATA_FAIL}, new String[]{ILI_FILE}));
+        Assert.equals(2, summaries.size());
+        for (String summary : summaries) {
+            Assert.equals(0L, getCounter(summary, "sharedGeometries"));
+            Assert.isTrue(getCounter(summary, "vertices") > 0);
+        }
+    }
+
+    private static List<String> getBaseClassMetricsSummaries(LogCollector logger) {
+        return logger.getInfo().stream()
+                .map(IoxLogEvent::getEventMsg)
+                .filter(message -> message.contains(".BaseClass.") && message.contains(" metrics: "))
+                .collect(Collectors.toList());
+    }
+
+    private static long getCounter(String summary, String counter) {
+        Matcher matcher = Pattern.compile("\\b" + counter + "=(\\d+)").matcher(summary);
+        Assert.isTrue(matcher.find(), summary);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static List<String> getLoggedEvaluationCounts(LogCollector logger) {
+        Pattern evaluations = Pattern.compile("evaluations=\\d+");
+        List<String> counts = new ArrayList<>();
+        for (IoxLogEvent event : logger.getInfo()) {
+            Matcher matcher = evaluations.matcher(event.getEventMsg());
+            if (event.getEventMsg().contains(" metrics: ") && matcher.find()) {
+                counts.add(matcher.group());
+            }
+        }
+        return counts;
+    }
+
     @Test
     public void isInsideAreaByCode() throws Ili2cFailure {
         List<Supplier<IomObject>> objects = Arrays.asList(() -> {
@@ -220,6 +390,62 @@ public final class IsInsideAreaByCodeIoxPluginTest {
                 "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
     }
 
+    @Test
+    public void allCodesStackedOverlapParallel() throws Ili2cFailure {
+        vh.setSetting(FunctionSettings.PARALLEL, "true");
+        vh.setSetting(FunctionSettings.PARALLELISM, "4");
+
+        AtomicInteger index = new AtomicInteger(0);
+        List<Supplier<IomObject>> objects = Stream
+                .of("code_10",
+                        "code_blue_20",
+                        "code_magenta_20",
+                        "code_30",
+                        "code_40",
+                        "code_noNumber15",
+                        "code_without_number",
+                        "code_")
+                .map(code -> (Supplier<IomObject>) () -> {
+                    IomObject object = new Iom_jObject(TEST_CLASS, "obj-" + code);
+                    object.setattrvalue("code", code);
+                    object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("0", "0", String.valueOf(100 - index.incrementAndGet() * 10), "100"));
+                    return object;
+                })
+                .collect(Collectors.toList());
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, objects.stream().map(Supplier::get).toArray(IomObject[]::new));
+        AssertionHelper.assertEventMessagesAreEqual(logger.getErrs(),
+                "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code 'code_10' and 'code_blue_20, code_magenta_20'. The offending geometry is near: POINT (85 50)",
+                "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code 'code_blue_20, code_magenta_20' and 'code_30'. The offending geometry is near: POINT (70 50)",
+                "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code 'code_30' and 'code_40'. The offending geometry is near: POINT (55 50)",
+                "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code 'code_40' and 'code_noNumber15, code_, code_without_number'. The offending geometry is near: POINT (45 50)",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+    }
+
+    @Test
+    public void allCodesStackedOverlapFailFast() throws Ili2cFailure {
+        vh.setSetting(FunctionSettings.FAIL_FAST, "true");
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createStackedOverlapObjects());
+        AssertionHelper.assertEventMessagesAreEqual(logger.getErrs(),
+                "IsInsideAreaByCode found a topological error between code 'code_10' and 'code_blue_20, code_magenta_20'",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+    }
+
+    /**
+     * Create rectangles sharing the left edge, each level narrower than the previous one, so every level overlaps the next.
+     */
+    private static IomObject[] createStackedOverlapObjects() {
+        String[] codes = {"code_10", "code_blue_20", "code_magenta_20", "code_30", "code_40", "code_noNumber15", "code_without_number", "code_"};
+        IomObject[] objects = new IomObject[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            objects[i] = new Iom_jObject(TEST_CLASS, "obj-" + codes[i]);
+            objects[i].setattrvalue("code", codes[i]);
+            objects[i].addattrobj("surface", IomObjectHelper.createRectangleGeometry("0", "0", String.valueOf(90 - i * 10), "100"));
+        }
+        return objects;
+    }
+
     @Test
     public void enumWithoutNumber() throws Ili2cFailure {
         List<Supplier<IomObject>> objects = Arrays.asList(() -> {
@@ -238,6 +464,69 @@ public final class IsInsideAreaByCodeIoxPluginTest {
         Assert.equals(0, logger.getErrs().size());
     }
 
+    @Test
+    public void objectWithoutCode() throws Ili2cFailure {
+        IomObject inner = new Iom_jObject(TEST_CLASS, "o1");
+        inner.setattrvalue("code", "code_10");
+        inner.addattrobj("surface", IomObjectHelper.createRectangleGeometry("20", "20", "40", "40"));
+        IomObject outer = new Iom_jObject(TEST_CLASS, "o2");
+        outer.setattrvalue("code", "code_30");
+        outer.addattrobj("surface", IomObjectHelper.createRectangleGeometry("10", "10", "50", "50"));
+        IomObject withoutCode = new Iom_jObject(TEST_CLASS, "o3");
+        withoutCode.addattrobj("surface", IomObjectHelper.createRectangleGeometry("60", "60", "70", "70"));
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, inner, outer, withoutCode);
+        AssertionHelper.assertEventMessagesAreEqual(logger.getErrs(),
+                "IsInsideAreaByCode found object 'o3' without code",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+    }
+
+    @Test
+    public void singlePassConversionOfInterleavedCodes() throws Ili2cFailure {
+        vh.setSetting(FunctionSettings.METRICS, "true");
+        ValidationTestHelper parallelHelper = new ValidationTestHelper(new IsInsideAreaByCodeIoxPlugin());
+        parallelHelper.setSetting(FunctionSettings.PARALLEL, "true");
+        parallelHelper.setSetting(FunctionSettings.PARALLELISM, "4");
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createInterleavedObjects());
+        LogCollector parallel = parallelHelper.runValidation(new String[]{ILI_FILE}, TOPIC, createInterleavedObjects());
+        AssertionHelper.assertEventMessagesAreEqual(logger.getErrs(),
+                "IsInsideAreaByCode found object 'o5' without code",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+        AssertionHelper.assertEventsAreEqual(parallel.getErrs(), logger.getErrs());
+
+        // Every surface is converted once, including the one of the object without code.
+        List<String> summaries = logger.getInfo().stream()
+                .map(IoxLogEvent::getEventMsg)
+                .filter(message -> message.contains(".TestClass.") && message.contains(" metrics: "))
+                .collect(Collectors.toList());
+        Assert.equals(1, summaries.size());
+        Assert.equals(25L, getCounter(summaries.get(0), "vertices"));
+    }
+
+    /**
+     * Create two cells of an inner and an outer rectangle with alternating codes, followed by an object without code.
+     */
+    private static IomObject[] createInterleavedObjects() {
+        String[][] rectangles = {
+                {"code_10", "10", "10", "20", "20"},
+                {"code_30", "0", "0", "30", "30"},
+                {"code_10", "60", "10", "70", "20"},
+                {"code_30", "50", "0", "80", "30"},
+                {null, "100", "0", "110", "10"},
+        };
+        IomObject[] objects = new IomObject[rectangles.length];
+        for (int i = 0; i < rectangles.length; i++) {
+            String[] rectangle = rectangles[i];
+            objects[i] = new Iom_jObject(TEST_CLASS, "o" + (i + 1));
+            if (rectangle[0] != null) {
+                objects[i].setattrvalue("code", rectangle[0]);
+            }
+            objects[i].addattrobj("surface", IomObjectHelper.createRectangleGeometry(rectangle[1], rectangle[2], rectangle[3], rectangle[4]));
+        }
+        return objects;
+    }
+
     @Test
     public void sharedSegment() throws Ili2cFailure {
         List<Supplier<IomObject>> objects = Arrays.asList(() -> {
@@ -300,8 +589,160 @@ public final class IsInsideAreaByCodeIoxPluginTest {
                 "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
     }
 
+    @Test
+    public void invalidOverlapTiled() throws Ili2cFailure {
+        vh.setSetting(FunctionSettings.TILE_SIZE, "7");
+        vh.setSetting(FunctionSettings.PARALLEL, "true");
+
+        List<Supplier<IomObject>> objects = Arrays.asList(() -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o1");
+            object.setattrvalue("code", "code_10");
+            object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("20", "20", "60", "40"));
+            return object;
+        }, () -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o2");
+            object.setattrvalue("code", "code_without_number");
+            object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("10", "10", "50", "50"));
+            return object;
+        });
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, objects.stream().map(Supplier::get).toArray(IomObject[]::new));
+        AssertionHelper.assertEventMessagesAreEqual(logger.getErrs(),
+                "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code 'code_10' and 'code_without_number'. The offending geometry is near: POINT (55 30)",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+    }
+
+    @Test
+    public void sharedSegmentsAcrossTileBordersTiled() throws Ili2cFailure {
+        vh.setSetting(FunctionSettings.TILE_SIZE, "7");
+        vh.setSetting(FunctionSettings.PARALLEL, "true");
+
+        List<Supplier<IomObject>> objects = Arrays.asList(() -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o1");
+            object.setattrvalue("code", "code_10");
+            object.addattrobj("surface", IomObjectHelper.createPolygonFromBoundaries(
+                    IomObjectHelper.createBoundary(
+                            IomObjectHelper.createCoord("20", "20"),
+                            IomObjectHelper.createCoord("13", "47"),
+                            IomObjectHelper.createCoord("50", "50"),
+                            IomObjectHelper.createCoord("50", "10"),
+                            IomObjectHelper.createCoord("20", "20"))));
+            return object;
+        }, () -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o2");
+            object.setattrvalue("code", "code_30");
+            object.addattrobj("surface", IomObjectHelper.createPolygonFromBoundaries(
+                    IomObjectHelper.createBoundary(
+                            IomObjectHelper.createCoord("10", "10"),
+                            IomObjectHelper.createCoord("10", "50"),
+                            IomObjectHelper.createCoord("50", "50"),
+                            IomObjectHelper.createCoord("50", "10"),
+                            IomObjectHelper.createCoord("20", "20"),
+                            IomObjectHelper.createCoord("10", "10"))));
+            return object;
+        }, () -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o3");
+            object.setattrvalue("code", "code_30");
+            object.addattrobj("surface", IomObjectHelper.createPolygonFromBoundaries(
+                    IomObjectHelper.createBoundary(
+                            IomObjectHelper.createCoord("10", "10"),
+                            IomObjectHelper.createCoord("20", "20"),
+                            IomObjectHelper.createCoord("50", "10"),
+                            IomObjectHelper.createCoord("10", "10"))));
+            return object;
+        });
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, objects.stream().map(Supplier::get).toArray(IomObject[]::new));
+        Assert.equals(0, logger.getErrs().size());
+    }
+
+    @Test
+    public void invalidOverlapLocalCoverage() throws Ili2cFailure {
+        vh.setSetting(FunctionSettings.LOCAL_COVERAGE, "true");
+
+        List<Supplier<IomObject>> objects = Arrays.asList(() -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o1");
+            object.setattrvalue("code", "code_10");
+            object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("20", "20", "60", "40"));
+            return object;
+        }, () -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o2");
+            object.setattrvalue("code", "code_without_number");
+            object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("10", "10", "50", "50"));
+            return object;
+        });
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, objects.stream().map(Supplier::get).toArray(IomObject[]::new));
+        AssertionHelper.assertEventMessagesAreEqual(logger.getErrs(),
+                "IsInsideAreaByCode found an invalid overlap or topological error (missing support point) between code 'code_10' and 'code_without_number'. The offending geometry is near: POINT (55 30)",
+                "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
+    }
+
+    @Test
+    public void jointlyCoveredLocalCoverage() throws Ili2cFailure {
+        vh.setSetting(FunctionSettings.LOCAL_COVERAGE, "true");
+
+        // Neither outer polygon covers the inner one on its own, only their union does.
+        List<Supplier<IomObject>> objects = Arrays.asList(() -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o1");
+            object.setattrvalue("code", "code_10");
+            object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("20", "20", "40", "40"));
+            return object;
+        }, () -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o2");
+            object.setattrvalue("code", "code_30");
+            object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("10", "10", "30", "50"));
+            return object;
+        }, () -> {
+            IomObject object = new Iom_jObject(TEST_CLASS, "o3");
+            object.setattrvalue("code", "code_30");
+            object.addattrobj("surface", IomObjectHelper.createRectangleGeometry("30", "10", "50", "50"));
+            return object;
+        });
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, objects.stream().map(Supplier::get).toArray(IomObject[]::new));
+        Assert.equals(0, logger.getErrs().size());
+    }
+
     @Test
     public void sharedArcSegment() throws Ili2cFailure {
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createSharedArcSegmentObjects());
+        Assert.equals(0, logger.getErrs().size());
+    }
+
+    @Test
+    public void sharedArcSegmentDifferentMidPoint() throws Ili2cFailure {
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, createSharedArcSegmentDifferentMidPointObjects());
+        // Because the arcs are stroked differently, thin overlaps occur
+        Assert.equals(2, logger.getErrs().size());
+
+        AssertionHelper.assertLogEventsMessages(logger.getErrs(), "^IsInsideAreaByCode found an invalid overlap or topological error \\(missing support point\\) between code 'code_10' and 'code_30'. The offending geometry is near: POINT \\(15.8\\d+ 59.5\\d+\\)$", 1);
+        AssertionHelper.assertLogEventsMessages(logger.getErrs(), "^Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.$", 1);
+    }
+
+    @Test
+    public void derivedArcToleranceGivesSameVerdictsAsExactArcs() throws Ili2cFailure {
+        for (Supplier<IomObject[]> objects : Arrays.<Supplier<IomObject[]>>asList(
+                IsInsideAreaByCodeIoxPluginTest::createSharedArcSegmentObjects,
+                IsInsideAreaByCodeIoxPluginTest::createSharedArcSegmentDifferentMidPointObjects)) {
+            ValidationTestHelper derivedTolerance = new ValidationTestHelper(new IsInsideAreaByCodeIoxPlugin());
+            List<String> derived = getMessagesWithoutPosition(derivedTolerance.runValidation(new String[]{ILI_FILE}, TOPIC, objects.get()));
+
+            ValidationTestHelper exactArcs = new ValidationTestHelper(new IsInsideAreaByCodeIoxPlugin());
+            exactArcs.setSetting(FunctionSettings.ARC_TOLERANCE, "0");
+            List<String> exact = getMessagesWithoutPosition(exactArcs.runValidation(new String[]{ILI_FILE}, TOPIC, objects.get()));
+
+            Assert.equals(exact, derived);
+        }
+    }
+
+    private static List<String> getMessagesWithoutPosition(LogCollector logger) {
+        return logger.getErrs().stream()
+                .map(error -> error.getEventMsg().replaceFirst(" The offending geometry is near: .*$", ""))
+                .collect(Collectors.toList());
+    }
+
+    private static IomObject[] createSharedArcSegmentObjects() {
         List<Supplier<IomObject>> objects = Arrays.asList(() -> {
             IomObject object = new Iom_jObject(TEST_CLASS, "o1");
             object.setattrvalue("code", "code_30");
@@ -323,13 +764,10 @@ public final class IsInsideAreaByCodeIoxPluginTest {
                             IomObjectHelper.createCoord("20", "20"))));
             return object;
         });
-
-        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, objects.stream().map(Supplier::get).toArray(IomObject[]::new));
-        Assert.equals(0, logger.getErrs().size());
+        return objects.stream().map(Supplier::get).toArray(IomObject[]::new);
     }
 
-    @Test
-    public void sharedArcSegmentDifferentMidPoint() throws Ili2cFailure {
+    private static IomObject[] createSharedArcSegmentDifferentMidPointObjects() {
         List<Supplier<IomObject>> objects = Arrays.asList(() -> {
             IomObject object = new Iom_jObject(TEST_CLASS, "o1");
             object.setattrvalue("code", "code_30");
@@ -351,13 +789,7 @@ public final class IsInsideAreaByCodeIoxPluginTest {
                             IomObjectHelper.createCoord("20", "20"))));
             return object;
         });
-
-        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, objects.stream().map(Supplier::get).toArray(IomObject[]::new));
-        // Because the arcs are stroked differently, thin overlaps occur
-        Assert.equals(2, logger.getErrs().size());
-
-        AssertionHelper.assertLogEventsMessages(logger.getErrs(), "^IsInsideAreaByCode found an invalid overlap or topological error \\(missing support point\\) between code 'code_10' and 'code_30'. The offending geometry is near: POINT \\(15.8\\d+ 59.5\\d+\\)$", 1);
-        AssertionHelper.assertLogEventsMessages(logger.getErrs(), "^Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.$", 1);
+        return objects.stream().map(Supplier::get).toArray(IomObject[]::new);
     }
 
     @Test
@@ -390,4 +822,47 @@ public final class IsInsideAreaByCodeIoxPluginTest {
                 "IsInsideAreaByCode found a topological error (probably missing support point) between code 'code_10' and 'code_30'. The offending geometry is inside the envelope: POLYGON ((2610067.640033932 1252503.9000373208, 2610067.640033932 1252503.9794528584, 2610067.67 1252503.9794528584, 2610067.67 1252503.9000373208, 2610067.640033932 1252503.9000373208))",
                 "Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.");
     }
+
+    @Test
+    public void almostCollinearSegmentManyVertices() throws Ili2cFailure {
+        // Same uncovered vertex as almostCollinearSegment, with a square wave deep inside the outer surface
+        // so the inner surface has enough vertices to be searched for the offending area in neighbourhoods.
+        List<IomObject> segments = new ArrayList<>();
+        segments.add(IomObjectHelper.createCoord("2610068.000", "1252503.850"));
+        long x = 2610068000L;
+        long y = 1252503700L;
+        segments.add(createMillimeterCoord(x, y));
+        for (int i = 0; i < 300; i++) {
+            x--;
+            segments.add(createMillimeterCoord(x, y));
+            y = y == 1252503700L ? 1252503710L : 1252503700L;
+            segments.add(createMillimeterCoord(x, y));
+        }
+        segments.add(IomObjectHelper.createCoord("2610067.670", "1252503.910"));
+        segments.add(IomObjectHelper.createCoord("2610067.650", "1252503.970"));
+        segments.add(IomObjectHelper.createCoord("2610068.000", "1252503.850"));
+
+        IomObject inner = new Iom_jObject(TEST_CLASS, "o1");
+        inner.setattrvalue("code", "code_10");
+        inner.addattrobj("surface", IomObjectHelper.createPolygonFromBoundaries(IomObjectHelper.createBoundary(segments.toArray(new IomObject[0]))));
+
+        IomObject outer = new Iom_jObject(TEST_CLASS, "o2");
+        outer.setattrvalue("code", "code_30");
+        outer.addattrobj("surface", IomObjectHelper.createPolygonFromBoundaries(
+                IomObjectHelper.createBoundary(
+                        IomObjectHelper.createCoord("2610070.000", "1252503.500"),
+                        IomObjectHelper.createCoord("2610067.610", "1252503.370"),
+                        IomObjectHelper.createCoord("2610067.670", "1252503.910"),
+                        IomObjectHelper.createCoord("2610067.580", "1252504.180"),
+                        IomObjectHelper.createCoord("2610070.000", "1252503.500"))));
+
+        LogCollector logger = vh.runValidation(new String[]{ILI_FILE}, TOPIC, inner, outer);
+        Assert.equals(2, logger.getErrs().size());
+        AssertionHelper.assertLogEventsMessages(logger.getErrs(), "^IsInsideAreaByCode found a topological error \\(probably missing support point\\) between code 'code_10' and 'code_30'. The offending geometry is inside the envelope: POLYGON \\(\\(2610067\\.6", 1);
+        AssertionHelper.assertLogEventsMessages(logger.getErrs(), "^Set Constraint TestSuite.FunctionTestTopic.TestClass.insideAreaConstraint is not true.$", 1);
+    }
+
+    private static IomObject createMillimeterCoord(long x, long y) {
+        return IomObjectHelper.createCoord(BigDecimal.valueOf(x, 3).toPlainString(), BigDecimal.valueOf(y, 3).toPlainString());
+    }
 }
@@ -0,0 +1,132 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Runs the complete validation on generated datasets of increasing size and reports wall time, peak heap and GC time.
+ * The peak heap is the maximum of the total used heap, sampled while the validation runs.
+ * Excluded from the regular test run, execute with {@code ./gradlew scalabilityTest}.
+ */
+@Tag("scalability")
+public final class IsInsideAreaByCodeScalabilityTest {
+    private static final String ILI_FILE = "IsInsideAreaByCode/SetConstraints.ili";
+    private static final String OBJECT_COUNTS_PROPERTY = "scalability.objectCounts";
+    private static final String DEFAULT_OBJECT_COUNTS = "10000,100000,1000000";
+    private static final int VERTEX_COUNT = 32;
+    private static final int LEVEL_COUNT = 4;
+    private static final long HEAP_SAMPLE_INTERVAL_MS = 10;
+
+    private Path tempDirectory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempDirectory = Files.createTempDirectory("ngk-scalability");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @TestFactory
+    public Stream<DynamicTest> validateGeneratedDatasets() {
+        return Arrays.stream(System.getProperty(OBJECT_COUNTS_PROPERTY, DEFAULT_OBJECT_COUNTS).split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .flatMap(objectCount -> Stream.of(
+                        DynamicTest.dynamicTest(objectCount + " objects, valid", () -> run(objectCount, false)),
+                        DynamicTest.dynamicTest(objectCount + " objects, broken", () -> run(objectCount, true))));
+    }
+
+    private void run(int objectCount, boolean broken) throws Exception {
+        Path dataFile = tempDirectory.resolve(String.format("ngk_%d_%s.xtf", objectCount, broken ? "broken" : "valid"));
+        new NgkDatasetGenerator()
+                .objectCount(objectCount)
+                .vertexCount(VERTEX_COUNT)
+                .levelCount(LEVEL_COUNT)
+                .broken(broken)
+                .write(dataFile);
+
+        ValidationTestHelper vh = new ValidationTestHelper(new IsInsideAreaByCodeIoxPlugin());
+
+        System.gc();
+        long gcTimeBefore = getGcTime();
+        long start = System.nanoTime();
+
+        LogCollector logger;
+        long peakHeapMb;
+        try (HeapSampler heapSampler = new HeapSampler()) {
+            logger = vh.runValidation(new String[]{dataFile.toAbsolutePath().toString()}, new String[]{ILI_FILE});
+            peakHeapMb = heapSampler.getPeakUsage() / (1024 * 1024);
+        }
+
+        long wallTimeMs = (System.nanoTime() - start) / 1_000_000;
+        long gcTimeMs = getGcTime() - gcTimeBefore;
+
+        System.out.printf("IsInsideAreaByCode scalability: objects=%d broken=%b wallTime=%dms peakHeap=%dMB gcTime=%dms errors=%d%n",
+                objectCount, broken, wallTimeMs, peakHeapMb, gcTimeMs, logger.getErrs().size());
+
+        if (broken) {
+            AssertionHelper.assertLogEventsContainMessage(logger.getErrs(), "^IsInsideAreaByCode found");
+        } else {
+            Assert.equals(0, logger.getErrs().size());
+        }
+    }
+
+    private static long getGcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+
+    /**
+     * Samples the total used heap in the background. The peaks of the single memory pools are not added up,
+     * because the pools reach them at different times.
+     */
+    private static final class HeapSampler implements AutoCloseable {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peakUsage = new AtomicLong();
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+        HeapSampler() {
+            executor.scheduleAtFixedRate(this::sample, 0, HEAP_SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        long getPeakUsage() {
+            sample();
+            return peakUsage.get();
+        }
+
+        private void sample() {
+            long used = memory.getHeapMemoryUsage().getUsed();
+            peakUsage.accumulateAndGet(used, Math::max);
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+}
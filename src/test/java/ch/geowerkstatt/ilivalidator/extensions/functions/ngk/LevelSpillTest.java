@@ -0,0 +1,80 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequenceFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public final class LevelSpillTest {
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+
+    private final WKTReader reader = new WKTReader(FACTORY);
+
+    @Test
+    public void levelsAboveBudgetAreSpilledAndDeleted(@TempDir Path parentDirectory) throws IOException, ParseException {
+        try (LevelSpill spill = new LevelSpill(1, parentDirectory, FACTORY)) {
+            addLevels(spill);
+            Assert.isTrue(spill.isSpilled());
+            Assert.equals(1L, countFiles(parentDirectory));
+
+            spill.unionLevels(2);
+            assertUnions(spill);
+        }
+
+        Assert.equals(0L, countFiles(parentDirectory));
+    }
+
+    @Test
+    public void levelsWithinBudgetStayInMemory(@TempDir Path parentDirectory) throws IOException, ParseException {
+        try (LevelSpill spill = new LevelSpill(1024 * 1024, parentDirectory, FACTORY)) {
+            addLevels(spill);
+            Assert.isTrue(!spill.isSpilled());
+
+            spill.unionLevels(2);
+            assertUnions(spill);
+            Assert.equals(0L, countFiles(parentDirectory));
+        }
+    }
+
+    @Test
+    public void packedVerticesAreEstimatedSmaller(@TempDir Path parentDirectory) throws IOException, ParseException {
+        GeometryFactory packedFactory = new GeometryFactory(new PrecisionModel(), 0, new PackedCoordinateSequenceFactory(PackedCoordinateSequenceFactory.DOUBLE, 2));
+        String square = "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))";
+
+        // 5 vertices take about 240 bytes as Coordinate objects, but only 80 bytes as packed doubles.
+        try (LevelSpill spill = new LevelSpill(100, parentDirectory, FACTORY)) {
+            spill.add(0, reader.read(square));
+            Assert.isTrue(spill.isSpilled());
+        }
+        try (LevelSpill spill = new LevelSpill(100, parentDirectory, packedFactory)) {
+            spill.add(0, new WKTReader(packedFactory).read(square));
+            Assert.isTrue(!spill.isSpilled());
+        }
+    }
+
+    private void addLevels(LevelSpill spill) throws IOException, ParseException {
+        spill.add(0, reader.read("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))"));
+        spill.add(0, reader.read("POLYGON ((10 0, 20 0, 20 10, 10 10, 10 0))"));
+        spill.add(1, reader.read("POLYGON ((0 0, 30 0, 30 30, 0 30, 0 0))"));
+    }
+
+    private void assertUnions(LevelSpill spill) throws IOException, ParseException {
+        Assert.isTrue(spill.getUnion(0).equalsTopo(reader.read("POLYGON ((0 0, 20 0, 20 10, 0 10, 0 0))")));
+        Assert.isTrue(spill.getUnion(1).equalsTopo(reader.read("POLYGON ((0 0, 30 0, 30 30, 0 30, 0 0))")));
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 public final class LogCollector implements ch.interlis.iox.IoxLogging {
     private final ArrayList<IoxLogEvent> errs = new ArrayList<>();
     private final ArrayList<IoxLogEvent> warn = new ArrayList<>();
+    private final ArrayList<IoxLogEvent> info = new ArrayList<>();
 
     @Override
     public void addEvent(IoxLogEvent event) {
@@ -18,6 +19,8 @@ public final class LogCollector implements ch.interlis.iox.IoxLogging {
             errs.add(event);
         } else if (event.getEventKind() == IoxLogEvent.WARNING) {
             warn.add(event);
+        } else if (event.getEventKind() == IoxLogEvent.INFO) {
+            info.add(event);
         }
     }
 
@@ -28,4 +31,8 @@ public final class LogCollector implements ch.interlis.iox.IoxLogging {
     public ArrayList<IoxLogEvent> getWarn() {
         return warn;
     }
+
+    public ArrayList<IoxLogEvent> getInfo() {
+        return info;
+    }
 }
@@ -0,0 +1,104 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.ehi.basics.settings.Settings;
+import ch.interlis.ili2c.Ili2cFailure;
+import ch.interlis.ili2c.metamodel.Element;
+import ch.interlis.ili2c.metamodel.PathEl;
+import ch.interlis.ili2c.metamodel.TextType;
+import ch.interlis.ili2c.metamodel.TransferDescription;
+import ch.interlis.ili2c.metamodel.Viewable;
+import ch.interlis.iox_j.validator.Validator;
+import ch.interlis.iox_j.validator.Value;
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class ModelElementCacheTest {
+    private static final String ILI_FILE = "IsInsideAreaByCode/SetConstraints.ili";
+    private static final String TOPIC = "TestSuite.FunctionTestTopic";
+    private static final String BASE_CLASS = TOPIC + ".BaseClass";
+    private static final String TEST_CLASS = TOPIC + ".TestClass";
+
+    private static TransferDescription td;
+    private static Validator validator;
+
+    private final AtomicInteger compiled = new AtomicInteger();
+
+    @BeforeAll
+    public static void compileModel() throws Ili2cFailure {
+        td = ValidationTestHelper.compileModel(ILI_FILE);
+        validator = ValidationTestHelper.createValidator(td);
+    }
+
+    @Test
+    public void instanceIsSharedPerSettings() {
+        Settings settings = new Settings();
+        ModelElementCache cache = ModelElementCache.getInstance(settings, td);
+
+        Assert.isTrue(cache == ModelElementCache.getInstance(settings, td));
+        Assert.isTrue(cache != ModelElementCache.getInstance(new Settings(), td));
+    }
+
+    @Test
+    public void viewableIsLookedUpByTag() {
+        ModelElementCache cache = ModelElementCache.getInstance(new Settings(), td);
+
+        Assert.isTrue(cache.getViewable(BASE_CLASS) == td.getElement(BASE_CLASS));
+        Assert.isTrue(cache.getViewable(TOPIC) == null);
+        Assert.isTrue(cache.getViewable(TOPIC + ".UnknownClass") == null);
+    }
+
+    @Test
+    public void attributePathIsParsedOncePerClassAndPath() {
+        ModelElementCache cache = ModelElementCache.getInstance(new Settings(), td);
+        Viewable<Element> baseClass = getViewable(BASE_CLASS);
+
+        PathEl[] surfacePath = getAttributePath(cache, baseClass, "surface");
+        Assert.isTrue(surfacePath != null && surfacePath.length == 1);
+        Assert.isTrue(surfacePath == getAttributePath(cache, baseClass, "surface"));
+        Assert.equals(1, compiled.get());
+
+        getAttributePath(cache, baseClass, "codeEnum");
+        getAttributePath(cache, getViewable(TEST_CLASS), "surface");
+        Assert.equals(3, compiled.get());
+    }
+
+    @Test
+    public void constraintPlanIsCompiledOncePerClassAndPaths() {
+        ModelElementCache cache = ModelElementCache.getInstance(new Settings(), td);
+        Viewable<Element> baseClass = getViewable(BASE_CLASS);
+
+        ConstraintPlan enumPlan = getConstraintPlan(cache, baseClass, "surface", "codeEnum");
+        Assert.isTrue(enumPlan == getConstraintPlan(cache, baseClass, "surface", "codeEnum"));
+        Assert.equals(ConstraintPlan.CodeKind.ENUMERATION, enumPlan.getCodeKind());
+        Assert.equals(1, compiled.get());
+
+        ConstraintPlan numericPlan = getConstraintPlan(cache, baseClass, "surface", "codeNumeric");
+        Assert.equals(ConstraintPlan.CodeKind.NUMERIC, numericPlan.getCodeKind());
+        Assert.equals(2, compiled.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Viewable<Element> getViewable(String tag) {
+        return (Viewable<Element>) td.getElement(tag);
+    }
+
+    private PathEl[] getAttributePath(ModelElementCache cache, Viewable<Element> contextClass, String path) {
+        return cache.getAttributePath(contextClass, path, p -> {
+            compiled.incrementAndGet();
+            return EvaluationHelper.getAttributePathEl(validator, contextClass, new Value(new TextType(), p));
+        });
+    }
+
+    private ConstraintPlan getConstraintPlan(ModelElementCache cache, Viewable<Element> contextClass, String geometryPath, String codePath) {
+        return cache.getConstraintPlan(contextClass, geometryPath, codePath, () -> {
+            compiled.incrementAndGet();
+            return new ConstraintPlan(
+                    EvaluationHelper.getAttributePathEl(validator, contextClass, new Value(new TextType(), geometryPath)),
+                    EvaluationHelper.getAttributePathEl(validator, contextClass, new Value(new TextType(), codePath)),
+                    new SurfaceConverter(0.001, null, false, false));
+        });
+    }
+}
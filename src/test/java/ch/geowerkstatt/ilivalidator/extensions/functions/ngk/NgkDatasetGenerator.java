@@ -0,0 +1,223 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iom.IomObject;
+import ch.interlis.iom_j.Iom_jObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Generates nested hazard zones for the model {@code IsInsideAreaByCode/SetConstraints.ili}, as objects in memory or as XTF.
+ * Each grid cell contains one concentric polygon per code level, so the zones of level {@code i} lie inside the
+ * zones of level {@code i + 1}. Without arcs the objects are of {@code BaseClass} (up to 100 numeric levels, {@code codeNumeric} is ten times the level),
+ * with arcs of {@code TestClass} (up to 5 levels, the only class allowing arcs).
+ */
+public final class NgkDatasetGenerator {
+    public static final String TOPIC = "TestSuite.FunctionTestTopic";
+    public static final String BASE_CLASS = TOPIC + ".BaseClass";
+    public static final String TEST_CLASS = TOPIC + ".TestClass";
+
+    private static final String[] TEST_CLASS_CODES = {"code_10", "code_blue_20", "code_30", "code_40", "code_without_number"};
+    private static final int MAX_BASE_CLASS_LEVELS = 100;
+    private static final int CODE_NUMERIC_STEP = 10;
+    private static final double ORIGIN_X = 2600000;
+    private static final double ORIGIN_Y = 1200000;
+    private static final double CELL_SIZE = 100;
+    private static final int BROKEN_CELL_INTERVAL = 100;
+
+    private int objectCount = 1000;
+    private int vertexCount = 32;
+    private int levelCount = 4;
+    private boolean arcs;
+    private boolean broken;
+
+    public NgkDatasetGenerator objectCount(int count) {
+        this.objectCount = count;
+        return this;
+    }
+
+    public NgkDatasetGenerator vertexCount(int count) {
+        this.vertexCount = Math.max(4, count + count % 2);
+        return this;
+    }
+
+    public NgkDatasetGenerator levelCount(int count) {
+        this.levelCount = count;
+        return this;
+    }
+
+    public NgkDatasetGenerator arcs(boolean withArcs) {
+        this.arcs = withArcs;
+        return this;
+    }
+
+    /**
+     * Shift the inner zones of every 100th cell, starting with the first, out of their outer zone, so the dataset violates the constraints.
+     */
+    public NgkDatasetGenerator broken(boolean isBroken) {
+        this.broken = isBroken;
+        return this;
+    }
+
+    /**
+     * Get the code level of an object created by this generator.
+     */
+    public static int getLevel(IomObject object) {
+        if (BASE_CLASS.equals(object.getobjecttag())) {
+            return Integer.parseInt(object.getattrvalue("codeNumeric")) / CODE_NUMERIC_STEP;
+        }
+        return Arrays.asList(TEST_CLASS_CODES).indexOf(object.getattrvalue("code"));
+    }
+
+    /**
+     * Create the objects in memory.
+     */
+    public List<IomObject> createObjects() {
+        checkLevelCount();
+        List<IomObject> objects = new ArrayList<>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            objects.add(createObject(i));
+        }
+        return objects;
+    }
+
+    /**
+     * Write the objects to the XTF {@code file}. The objects are created one after another, so large datasets do not need to fit into memory.
+     */
+    public void write(Path file) throws IOException {
+        checkLevelCount();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<ili:transfer xmlns:ili=\"http://www.interlis.ch/xtf/2.4/INTERLIS\" xmlns:geom=\"http://www.interlis.ch/geometry/1.0\"\n");
+            writer.write("              xmlns:TestSuite=\"http://www.interlis.ch/xtf/2.4/TestSuite\">\n");
+            writer.write("<ili:headersection><ili:models><ili:model>NGK_SO_FunctionsExt</ili:model><ili:model>TestSuite</ili:model></ili:models>");
+            writer.write("<ili:sender>NgkDatasetGenerator</ili:sender></ili:headersection>\n");
+            writer.write("<ili:datasection>\n<TestSuite:FunctionTestTopic ili:bid=\"b1\">\n");
+
+            for (int i = 0; i < objectCount; i++) {
+                writeObject(writer, createObject(i));
+            }
+
+            writer.write("</TestSuite:FunctionTestTopic>\n</ili:datasection>\n</ili:transfer>\n");
+        }
+    }
+
+    private void checkLevelCount() {
+        int maxLevels = arcs ? TEST_CLASS_CODES.length : MAX_BASE_CLASS_LEVELS;
+        if (levelCount < 1 || levelCount > maxLevels) {
+            throw new IllegalArgumentException(String.format("levelCount must be between 1 and %d.", maxLevels));
+        }
+    }
+
+    private IomObject createObject(int index) {
+        int cellCount = Math.max(1, objectCount / levelCount);
+        int columns = (int) Math.ceil(Math.sqrt(cellCount));
+        int cell = index % cellCount;
+        int level = Math.min(levelCount - 1, index / cellCount);
+
+        double centerX = ORIGIN_X + (cell % columns) * CELL_SIZE + CELL_SIZE / 2;
+        double centerY = ORIGIN_Y + (cell / columns) * CELL_SIZE + CELL_SIZE / 2;
+        double radius = CELL_SIZE * 0.45 * (level + 1) / levelCount;
+        if (broken && cell % BROKEN_CELL_INTERVAL == 0 && level < levelCount - 1) {
+            centerX += CELL_SIZE * 0.3;
+        }
+
+        IomObject object = new Iom_jObject(arcs ? TEST_CLASS : BASE_CLASS, "o" + index);
+        if (arcs) {
+            object.setattrvalue("code", TEST_CLASS_CODES[level]);
+        } else {
+            object.setattrvalue("codeEnum", "code_" + (Math.min(level, 3) + 1));
+            object.setattrvalue("codeNumeric", Integer.toString(level * CODE_NUMERIC_STEP));
+        }
+        object.addattrobj("surface", createSurface(centerX, centerY, radius));
+        return object;
+    }
+
+    private IomObject createSurface(double centerX, double centerY, double radius) {
+        IomObject segments = new Iom_jObject("SEGMENTS", null);
+        segments.addattrobj("segment", createSegment("COORD", centerX, centerY, radius, 0));
+        if (arcs) {
+            // The odd vertices are the mid points of the arcs.
+            for (int i = 1; i < vertexCount; i += 2) {
+                IomObject arc = createSegment("ARC", centerX, centerY, radius, i + 1);
+                arc.setattrvalue("A1", format(x(centerX, radius, i)));
+                arc.setattrvalue("A2", format(y(centerY, radius, i)));
+                segments.addattrobj("segment", arc);
+            }
+        } else {
+            for (int i = 1; i <= vertexCount; i++) {
+                segments.addattrobj("segment", createSegment("COORD", centerX, centerY, radius, i));
+            }
+        }
+
+        IomObject polyline = new Iom_jObject("POLYLINE", null);
+        polyline.addattrobj("sequence", segments);
+        IomObject boundary = new Iom_jObject("BOUNDARY", null);
+        boundary.addattrobj("polyline", polyline);
+        IomObject surface = new Iom_jObject("SURFACE", null);
+        surface.addattrobj("boundary", boundary);
+        IomObject multisurface = new Iom_jObject("MULTISURFACE", null);
+        multisurface.addattrobj("surface", surface);
+        return multisurface;
+    }
+
+    private IomObject createSegment(String tag, double centerX, double centerY, double radius, int vertex) {
+        IomObject segment = new Iom_jObject(tag, null);
+        segment.setattrvalue("C1", format(x(centerX, radius, vertex)));
+        segment.setattrvalue("C2", format(y(centerY, radius, vertex)));
+        return segment;
+    }
+
+    private static void writeObject(Writer writer, IomObject object) throws IOException {
+        String className = "TestSuite:" + object.getobjecttag().substring(TOPIC.length() + 1);
+        writer.write("<" + className + " ili:tid=\"" + object.getobjectoid() + "\">");
+        for (String attribute : new String[]{"code", "codeEnum", "codeNumeric"}) {
+            String value = object.getattrvalue(attribute);
+            if (value != null) {
+                writer.write("<TestSuite:" + attribute + ">" + value + "</TestSuite:" + attribute + ">");
+            }
+        }
+
+        writer.write("<TestSuite:surface><geom:surface><geom:exterior><geom:polyline>");
+        IomObject segments = object.getattrobj("surface", 0)
+                .getattrobj("surface", 0)
+                .getattrobj("boundary", 0)
+                .getattrobj("polyline", 0)
+                .getattrobj("sequence", 0);
+        for (int i = 0; i < segments.getattrvaluecount("segment"); i++) {
+            IomObject segment = segments.getattrobj("segment", i);
+            boolean isArc = "ARC".equals(segment.getobjecttag());
+            writer.write(isArc ? "<geom:arc>" : "<geom:coord>");
+            writer.write("<geom:c1>" + segment.getattrvalue("C1") + "</geom:c1><geom:c2>" + segment.getattrvalue("C2") + "</geom:c2>");
+            if (isArc) {
+                writer.write("<geom:a1>" + segment.getattrvalue("A1") + "</geom:a1><geom:a2>" + segment.getattrvalue("A2") + "</geom:a2>");
+            }
+            writer.write(isArc ? "</geom:arc>" : "</geom:coord>");
+        }
+        writer.write("</geom:polyline></geom:exterior></geom:surface></TestSuite:surface>");
+        writer.write("</" + className + ">\n");
+    }
+
+    private static String format(double ordinate) {
+        return String.format(Locale.ROOT, "%.3f", ordinate);
+    }
+
+    private double x(double centerX, double radius, int vertex) {
+        return centerX + radius * Math.cos(angle(vertex));
+    }
+
+    private double y(double centerY, double radius, int vertex) {
+        return centerY + radius * Math.sin(angle(vertex));
+    }
+
+    private double angle(int vertex) {
+        return 2 * Math.PI * (vertex % vertexCount) / vertexCount;
+    }
+}
@@ -0,0 +1,45 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+
+public final class ObjectSetFingerprintTest {
+
+    @Test
+    public void sameSequenceSameFingerprint() {
+        ObjectSetFingerprint fingerprint = build("transfer.xtf", "o1", "o2");
+        ObjectSetFingerprint other = build("transfer.xtf", "o1", "o2");
+
+        Assert.equals(fingerprint, other);
+        Assert.equals(fingerprint.hashCode(), other.hashCode());
+        Assert.equals(fingerprint.toString(), other.toString());
+        Assert.equals(3L, fingerprint.getElementCount());
+    }
+
+    @Test
+    public void orderAndBoundariesChangeFingerprint() {
+        Assert.isTrue(!build("o1", "o2").equals(build("o2", "o1")));
+        Assert.isTrue(!build("ab", "c").equals(build("a", "bc")));
+        Assert.isTrue(!build((String) null).equals(build("")));
+        Assert.isTrue(!build("o1").equals(build("o1", "")));
+    }
+
+    @Test
+    public void nestedFingerprintIdentifiesObjectSet() {
+        ObjectSetFingerprint objectSet = build("transfer.xtf", "o1", "o2");
+        ObjectSetFingerprint key = new ObjectSetFingerprint.Builder().add("surface").add("code").add(objectSet).build();
+
+        Assert.equals(key, new ObjectSetFingerprint.Builder().add("surface").add("code").add(build("transfer.xtf", "o1", "o2")).build());
+        Assert.equals(5L, key.getElementCount());
+        Assert.isTrue(!key.equals(new ObjectSetFingerprint.Builder().add("surface").add("codeNumeric").add(objectSet).build()));
+        Assert.isTrue(!key.equals(new ObjectSetFingerprint.Builder().add("surface").add("code").add(build("transfer.xtf", "o1", "o3")).build()));
+    }
+
+    private static ObjectSetFingerprint build(String... elements) {
+        ObjectSetFingerprint.Builder builder = new ObjectSetFingerprint.Builder();
+        for (String element : elements) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,46 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class ParallelHelperTest {
+    private static final List<Integer> ITEMS = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+    @Test
+    public void resultsKeepOrderOfItems() {
+        Assert.equals(ITEMS.stream().map(i -> i * 2).collect(Collectors.toList()), ParallelHelper.map(4, ITEMS, i -> i * 2));
+    }
+
+    @Test
+    public void poolIsReusedAndLimitedToParallelism() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        for (int run = 0; run < 10; run++) {
+            ParallelHelper.map(2, ITEMS, i -> threads.add(Thread.currentThread()));
+        }
+
+        // The submitting thread waits for the pool, so all items run on the two workers of the shared pool.
+        Assert.isTrue(threads.size() <= 2, threads.toString());
+    }
+
+    @Test
+    public void exceptionOfMapperIsRethrown() {
+        try {
+            ParallelHelper.map(4, ITEMS, i -> {
+                if (i == 50) {
+                    throw new IllegalArgumentException("item 50");
+                }
+                return i;
+            });
+            Assert.shouldNeverReachHere();
+        } catch (IllegalArgumentException e) {
+            // The fork/join framework may rethrow a copy of the exception which wraps the original one.
+            Assert.isTrue(e.getMessage().contains("item 50"), e.getMessage());
+        }
+    }
+}
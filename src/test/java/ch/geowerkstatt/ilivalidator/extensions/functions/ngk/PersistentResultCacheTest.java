@@ -0,0 +1,66 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iox.IoxLogEvent;
+import ch.interlis.iox_j.logging.LogEventFactory;
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+
+public final class PersistentResultCacheTest {
+    private static final String KEY = new ContentDigest().add("key").toHex();
+
+    @Test
+    public void entryOfSameBuildIsRead(@TempDir Path directory) throws IOException {
+        new PersistentResultCache(directory, "1.0.0").put(KEY, false, Collections.emptyList());
+
+        PersistentResultCache.Entry entry = new PersistentResultCache(directory, "1.0.0").get(KEY);
+        Assert.isTrue(entry != null);
+        Assert.isTrue(!entry.getResult());
+    }
+
+    @Test
+    public void entryOfOtherBuildIsMissing(@TempDir Path directory) throws IOException {
+        new PersistentResultCache(directory, "1.0.0-SNAPSHOT-1").put(KEY, true, Collections.emptyList());
+
+        Assert.isTrue(new PersistentResultCache(directory, "1.0.0-SNAPSHOT-2").get(KEY) == null);
+    }
+
+    @Test
+    public void eventsAreReplayedWithCoordinates(@TempDir Path directory) throws IOException {
+        LogEventFactory events = new LogEventFactory();
+        new PersistentResultCache(directory, "1.0.0").put(KEY, false, Arrays.asList(
+                events.logErrorMsg("error", 1.0, 2.0, null),
+                events.logWarningMsg("warning", 3.0, 4.0, null),
+                events.logInfoMsg("info", 5.0, 6.0, null),
+                events.logWarningMsg("warning without coordinates")));
+
+        LogCollector collector = new LogCollector();
+        LogEventFactory logger = new LogEventFactory();
+        logger.setLogger(collector);
+        new PersistentResultCache(directory, "1.0.0").get(KEY).replay(logger);
+
+        AssertionHelper.assertEventMessagesAreEqual(collector.getErrs(), "error");
+        AssertionHelper.assertEventMessagesAreEqual(collector.getWarn(), "warning", "warning without coordinates");
+        AssertionHelper.assertEventMessagesAreEqual(collector.getInfo(), "info");
+        assertCoordinates(collector.getErrs().get(0), 1.0, 2.0);
+        assertCoordinates(collector.getWarn().get(0), 3.0, 4.0);
+        assertCoordinates(collector.getInfo().get(0), 5.0, 6.0);
+        assertCoordinates(collector.getWarn().get(1), null, null);
+    }
+
+    @Test
+    public void missingEntry(@TempDir Path directory) {
+        Assert.isTrue(new PersistentResultCache(directory, "1.0.0").get(KEY) == null);
+    }
+
+    private static void assertCoordinates(IoxLogEvent event, Double x, Double y) {
+        Assert.isTrue(Objects.equals(x, event.getSourceObjectXCoord()), "Expected x " + x + " but got " + event.getSourceObjectXCoord());
+        Assert.isTrue(Objects.equals(y, event.getSourceObjectYCoord()), "Expected y " + y + " but got " + event.getSourceObjectYCoord());
+    }
+}
@@ -0,0 +1,97 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ResultCacheTest {
+    private static final String SCOPE = "transfer.xtf";
+
+    private final List<String> loaded = new ArrayList<>();
+
+    @Test
+    public void cachedValueIsNotLoadedAgain() {
+        ResultCache<String, String> cache = new ResultCache<>(10, 100, key -> 1);
+
+        Assert.equals("a-value", get(cache, SCOPE, "a"));
+        Assert.equals("a-value", get(cache, SCOPE, "a"));
+        Assert.equals(1, loaded.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedByEntryCount() {
+        ResultCache<String, String> cache = new ResultCache<>(2, 100, key -> 1);
+        get(cache, SCOPE, "a");
+        get(cache, SCOPE, "b");
+        get(cache, SCOPE, "a");
+        get(cache, SCOPE, "c");
+        Assert.equals(2, cache.size());
+
+        loaded.clear();
+        get(cache, SCOPE, "a");
+        get(cache, SCOPE, "c");
+        Assert.equals(0, loaded.size());
+        get(cache, SCOPE, "b");
+        Assert.equals(1, loaded.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedByWeight() {
+        ResultCache<String, String> cache = new ResultCache<>(10, 10, String::length);
+        get(cache, SCOPE, "aaaa");
+        get(cache, SCOPE, "bbbb");
+        get(cache, SCOPE, "aaaa");
+        get(cache, SCOPE, "ccc");
+        Assert.equals(2, cache.size());
+
+        loaded.clear();
+        get(cache, SCOPE, "aaaa");
+        get(cache, SCOPE, "ccc");
+        Assert.equals(0, loaded.size());
+        get(cache, SCOPE, "bbbb");
+        Assert.equals(1, loaded.size());
+    }
+
+    @Test
+    public void skipValueHeavierThanMaxWeight() {
+        ResultCache<String, String> cache = new ResultCache<>(10, 3, String::length);
+        Assert.equals("aaaa-value", get(cache, SCOPE, "aaaa"));
+        Assert.equals(0, cache.size());
+    }
+
+    @Test
+    public void invalidateOnScopeChange() {
+        ResultCache<String, String> cache = new ResultCache<>(10, 100, key -> 1);
+        get(cache, SCOPE, "a");
+        get(cache, SCOPE, "b");
+
+        get(cache, "other.xtf", "a");
+        Assert.equals(1, cache.size());
+        Assert.equals(3, loaded.size());
+    }
+
+    @Test
+    public void failedLoadIsNotCached() {
+        ResultCache<String, String> cache = new ResultCache<>(10, 100, key -> 1);
+        try {
+            cache.computeIfAbsent(SCOPE, "a", key -> {
+                throw new IllegalStateException("failed");
+            });
+            Assert.shouldNeverReachHere();
+        } catch (IllegalStateException e) {
+            Assert.equals("failed", e.getMessage());
+        }
+
+        Assert.equals(0, cache.size());
+        Assert.equals("a-value", get(cache, SCOPE, "a"));
+    }
+
+    private String get(ResultCache<String, String> cache, Object scope, String key) {
+        return cache.computeIfAbsent(scope, key, k -> {
+            loaded.add(k);
+            return k + "-value";
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import ch.interlis.iom.IomObject;
+import ch.interlis.iox.IoxException;
+import ch.interlis.iox_j.logging.LogEventFactory;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequence;
+import com.vividsolutions.jts.util.Assert;
+import org.junit.jupiter.api.Test;
+
+public final class SurfaceConverterTest {
+    private static final double ARC_TOLERANCE = 0.001;
+    private static final IomObject OFF_GRID_SURFACE = IomObjectHelper.createRectangleGeometry("0.0004", "0", "10.0006", "10");
+
+    private final LogEventFactory log = new LogEventFactory();
+
+    @Test
+    public void fixedPrecisionRoundsToModelGrid() throws IoxException {
+        PrecisionModel precisionModel = new PrecisionModel(1000);
+        Geometry geometry = new SurfaceConverter(ARC_TOLERANCE, precisionModel, false, false).convert(OFF_GRID_SURFACE, log);
+
+        Assert.equals(precisionModel, geometry.getPrecisionModel());
+        Envelope envelope = geometry.getEnvelopeInternal();
+        Assert.equals(0.0, envelope.getMinX());
+        Assert.equals(10.001, envelope.getMaxX());
+    }
+
+    @Test
+    public void floatingPrecisionKeepsCoordinates() throws IoxException {
+        Geometry geometry = new SurfaceConverter(ARC_TOLERANCE, null, false, false).convert(OFF_GRID_SURFACE, log);
+
+        Assert.isTrue(geometry.getPrecisionModel().isFloating());
+        Envelope envelope = geometry.getEnvelopeInternal();
+        Assert.equals(0.0004, envelope.getMinX());
+        Assert.equals(10.0006, envelope.getMaxX());
+    }
+
+    @Test
+    public void packedCoordinatesAreStoredInPackedSequences() throws IoxException {
+        assertPackedCoordinates(new SurfaceConverter(ARC_TOLERANCE, null, false, true).convert(OFF_GRID_SURFACE, log));
+    }
+
+    @Test
+    public void packedCoordinatesAreKeptByFixedPrecision() throws IoxException {
+        assertPackedCoordinates(new SurfaceConverter(ARC_TOLERANCE, new PrecisionModel(1000), false, true).convert(OFF_GRID_SURFACE, log));
+    }
+
+    private static void assertPackedCoordinates(Geometry geometry) {
+        Polygon polygon = (Polygon) geometry.getGeometryN(0);
+        Assert.isTrue(polygon.getExteriorRing().getCoordinateSequence() instanceof PackedCoordinateSequence);
+    }
+}
@@ -0,0 +1,61 @@
+package ch.geowerkstatt.ilivalidator.extensions.functions.ngk;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.util.Assert;
+import com.vividsolutions.jts.util.GeometricShapeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class TilingHelperTest {
+    private static final int CIRCLE_VERTICES = 4096;
+
+    private final WKTReader reader = new WKTReader();
+
+    @Test
+    public void workPerTileIsBounded() {
+        Geometry outer = createCircle(1000);
+        Geometry inner = createCircle(900);
+        List<Integer> tileVertexCounts = new ArrayList<>();
+
+        CoverageResult result = TilingHelper.checkCoverage(outer, inner, 100, 1, tileVertexCounts::add);
+
+        Assert.isTrue(result.isCovered());
+        Assert.isTrue(tileVertexCounts.size() > 100, "Expected the inner circle to span more than 100 tiles but got " + tileVertexCounts.size());
+        int maxTileVertexCount = Collections.max(tileVertexCounts);
+        Assert.isTrue(maxTileVertexCount < CIRCLE_VERTICES / 8, "Expected less than " + CIRCLE_VERTICES / 8 + " vertices per tile but got " + maxTileVertexCount);
+    }
+
+    @Test
+    public void sharedSlantedEdgesAcrossTileBordersAreCovered() throws ParseException {
+        Geometry outer = reader.read("POLYGON ((10 10, 13 47, 50 50, 50 10, 10 10))");
+        Geometry inner = reader.read("POLYGON ((20 20, 13 47, 50 50, 50 10, 20 20))");
+
+        Assert.isTrue(TilingHelper.checkCoverage(outer, inner, 7, 1, vertices -> { }).isCovered());
+    }
+
+    @Test
+    public void offendingPartsOfAllTilesAreMerged() throws ParseException {
+        Geometry outer = reader.read("POLYGON ((10 10, 50 10, 50 50, 10 50, 10 10))");
+        Geometry inner = reader.read("POLYGON ((20 20, 60 20, 60 40, 20 40, 20 20))");
+
+        CoverageResult result = TilingHelper.checkCoverage(outer, inner, 7, 1, vertices -> { });
+
+        Assert.isTrue(!result.isCovered());
+        Assert.isTrue(result.getOffending().equalsTopo(reader.read("POLYGON ((50 20, 60 20, 60 40, 50 40, 50 20))")));
+        Assert.isTrue(result.getOffending().equalsTopo(CoverageHelper.checkCoverage(outer, inner).getOffending()));
+    }
+
+    private static Geometry createCircle(double radius) {
+        GeometricShapeFactory shapeFactory = new GeometricShapeFactory();
+        shapeFactory.setNumPoints(CIRCLE_VERTICES);
+        shapeFactory.setCentre(new Coordinate(0, 0));
+        shapeFactory.setSize(radius * 2);
+        return shapeFactory.createCircle();
+    }
+}
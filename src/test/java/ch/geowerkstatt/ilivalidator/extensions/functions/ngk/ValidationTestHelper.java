@@ -31,6 +31,7 @@ public final class ValidationTestHelper {
     private static final String FUNCTIONS_EXT_23_ILI_PATH = "src/model/NGK_SO_FunctionsExt_23.ili";
 
     private final HashMap<String, Class<? extends InterlisFunction>> userFunctions = new HashMap<>();
+    private final HashMap<String, String> settingValues = new HashMap<>();
 
     public ValidationTestHelper(InterlisFunction... userFunctions) {
         for (InterlisFunction function : userFunctions) {
@@ -38,12 +39,29 @@ public final class ValidationTestHelper {
         }
     }
 
-    public LogCollector runValidation(String[] dataFiles, String[] modelFiles) throws IoxException, Ili2cFailure {
-        dataFiles = addLeadingTestDataDirectory(dataFiles);
+    public void setSetting(String key, String value) {
+        settingValues.put(key, value);
+    }
+
+    /**
+     * Compile {@code modelFiles}, relative to the test data directory, together with the functions extension model.
+     */
+    public static TransferDescription compileModel(String... modelFiles) throws Ili2cFailure {
         modelFiles = addLeadingTestDataDirectory(modelFiles);
         modelFiles = prependFunctionsExtIli(modelFiles);
+        return Ili2c.compileIliFiles(new ArrayList<>(Arrays.asList(modelFiles)), new ArrayList<String>());
+    }
 
-        TransferDescription td = Ili2c.compileIliFiles(new ArrayList<>(Arrays.asList(modelFiles)), new ArrayList<String>());
+    /**
+     * Create a validator for {@code td} without custom functions or settings, to evaluate attribute paths outside of a validation.
+     */
+    public static Validator createValidator(TransferDescription td) {
+        return new Validator(td, new ValidationConfig(), new LogCollector(), new LogEventFactory(), new PipelinePool(), new Settings());
+    }
+
+    public LogCollector runValidation(String[] dataFiles, String[] modelFiles) throws IoxException, Ili2cFailure {
+        dataFiles = addLeadingTestDataDirectory(dataFiles);
+        TransferDescription td = compileModel(modelFiles);
 
         LogCollector logger = new LogCollector();
         LogEventFactory errFactory = new LogEventFactory();
@@ -52,6 +70,7 @@ public final class ValidationTestHelper {
         ValidationConfig modelConfig = new ValidationConfig();
 
         settings.setTransientObject(ch.interlis.iox_j.validator.Validator.CONFIG_CUSTOM_FUNCTIONS, userFunctions);
+        settingValues.forEach(settings::setValue);
         modelConfig.mergeIliMetaAttrs(td);
         Validator validator = new Validator(td, modelConfig, logger, errFactory, pool, settings);
 
@@ -78,9 +97,7 @@ public final class ValidationTestHelper {
     }
 
     public LogCollector runValidation(String[] modelFiles, String topic, IomObject... objects) throws Ili2cFailure {
-        modelFiles = addLeadingTestDataDirectory(modelFiles);
-        modelFiles = prependFunctionsExtIli(modelFiles);
-        TransferDescription td = Ili2c.compileIliFiles(new ArrayList<>(Arrays.asList(modelFiles)), new ArrayList<String>());
+        TransferDescription td = compileModel(modelFiles);
 
         LogCollector logger = new LogCollector();
         LogEventFactory errFactory = new LogEventFactory();
@@ -89,6 +106,7 @@ public final class ValidationTestHelper {
         ValidationConfig modelConfig = new ValidationConfig();
 
         settings.setTransientObject(ch.interlis.iox_j.validator.Validator.CONFIG_CUSTOM_FUNCTIONS, userFunctions);
+        settingValues.forEach(settings::setValue);
         modelConfig.mergeIliMetaAttrs(td);
         Validator validator = new Validator(td, modelConfig, logger, errFactory, pool, settings);
 
@@ -102,7 +120,7 @@ public final class ValidationTestHelper {
         return logger;
     }
 
-    private String[] prependFunctionsExtIli(String[] modelDirs) {
+    private static String[] prependFunctionsExtIli(String[] modelDirs) {
         System.out.println("Working Directory = " + System.getProperty("user.dir"));
 
         String[] result = new String[modelDirs.length + 1];
@@ -112,9 +130,9 @@ public final class ValidationTestHelper {
         return result;
     }
 
-    private String[] addLeadingTestDataDirectory(String[] files) {
+    private static String[] addLeadingTestDataDirectory(String[] files) {
         return Arrays
-                .stream(files).map(file -> Paths.get("src/test/data", file).toString())
+                .stream(files).map(file -> Paths.get(file).isAbsolute() ? file : Paths.get("src/test/data", file).toString())
                 .distinct()
                 .toArray(String[]::new);
     }